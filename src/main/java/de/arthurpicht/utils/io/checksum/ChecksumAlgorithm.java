@@ -0,0 +1,41 @@
+package de.arthurpicht.utils.io.checksum;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Algorithm for computing checksums or digests over file content. See {@link StandardChecksumAlgorithm} for
+ * provided algorithms. Further algorithms can be plugged in by implementing this interface.
+ */
+public interface ChecksumAlgorithm {
+
+    /**
+     * Computation of one checksum. Instances are not thread safe.
+     */
+    interface Hasher {
+
+        /**
+         * Updates checksum with the remaining bytes of specified buffer. Buffer position is advanced to its
+         * limit.
+         */
+        void update(ByteBuffer buffer);
+
+        /**
+         * Returns the checksum over all bytes updated so far. Does not change the state of this hasher, so
+         * updating can be continued.
+         *
+         * @return checksum value, for numeric checksums in big-endian byte order
+         */
+        byte[] getValue();
+    }
+
+    /**
+     * @return name of algorithm
+     */
+    String getName();
+
+    /**
+     * @return new hasher in initial state
+     */
+    Hasher newHasher();
+
+}
@@ -0,0 +1,259 @@
+package de.arthurpicht.utils.io.checksum;
+
+import de.arthurpicht.utils.io.nio2.FileUtils;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Bounded LRU cache of file checksums. Entries are keyed by file identity (the file key as provided by the file
+ * system, e.g. device and inode, or the absolute path if the file system provides no file key) and algorithm.
+ * Each entry is validated against size and last modified time of the file, so a cache hit skips reading the
+ * file. The cache can be saved to and loaded from a compact index file to be reused across runs.
+ * Implementation is thread safe.
+ * <br>
+ * Example:
+ * <pre>
+ *     ChecksumCache cache = ChecksumCache.load(indexFile, 100_000);
+ *     byte[] sha256 = cache.compute(file, StandardChecksumAlgorithm.SHA_256);
+ *     cache.save(indexFile);
+ * </pre>
+ */
+public class ChecksumCache {
+
+    private static final int MAGIC = 0x41504343;
+    private static final int VERSION = 1;
+
+    private record Key(String fileIdentity, String algorithmName) {
+    }
+
+    private record CachedChecksum(long size, long lastModifiedNanos, byte[] value) {
+    }
+
+    private final int maxSize;
+    private final Map<Key, CachedChecksum> cache;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * @param maxSize maximum number of checksums to be kept
+     */
+    public ChecksumCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be greater than 0");
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedChecksum> eldest) {
+                boolean evict = size() > ChecksumCache.this.maxSize;
+                if (evict) evictionCount++;
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache with entries of specified index file as saved by {@link #save(Path)}. If the index file
+     * holds more than maxSize entries, the least recently used ones are dropped.
+     *
+     * @param indexFile index file, is ignored if not existing
+     * @param maxSize maximum number of checksums to be kept
+     * @return cache
+     * @throws IOException on error when reading index file or if index file is corrupt
+     */
+    public static ChecksumCache load(Path indexFile, int maxSize) throws IOException {
+        assertArgumentNotNull("indexFile", indexFile);
+        ChecksumCache checksumCache = new ChecksumCache(maxSize);
+        if (!Files.exists(indexFile)) return checksumCache;
+
+        try (DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (inputStream.readInt() != MAGIC)
+                throw new IOException("Not a checksum cache index file: [" + indexFile.toAbsolutePath() + "].");
+            int version = inputStream.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported checksum cache index file version: " + version + ".");
+            int count = inputStream.readInt();
+            for (int i = 0; i < count; i++) {
+                Key key = new Key(inputStream.readUTF(), inputStream.readUTF());
+                long size = inputStream.readLong();
+                long lastModifiedNanos = inputStream.readLong();
+                byte[] value = new byte[inputStream.readUnsignedShort()];
+                inputStream.readFully(value);
+                checksumCache.cache.put(key, new CachedChecksum(size, lastModifiedNanos, value));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Checksum cache index file is truncated: [" + indexFile.toAbsolutePath() + "].", e);
+        }
+        checksumCache.evictionCount = 0;
+        return checksumCache;
+    }
+
+    /**
+     * Saves all entries to specified index file, in order from least to most recently used. The index file is
+     * replaced atomically, if supported by the file system.
+     *
+     * @param indexFile index file
+     * @throws IOException on error when writing index file
+     */
+    public void save(Path indexFile) throws IOException {
+        assertArgumentNotNull("indexFile", indexFile);
+        List<Map.Entry<Key, CachedChecksum>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(this.cache.entrySet());
+        }
+
+        Path tempFile = FileUtils.createTempFileForReplacement(indexFile, ".checksumCache-");
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(entries.size());
+                for (Map.Entry<Key, CachedChecksum> entry : entries) {
+                    outputStream.writeUTF(entry.getKey().fileIdentity());
+                    outputStream.writeUTF(entry.getKey().algorithmName());
+                    outputStream.writeLong(entry.getValue().size());
+                    outputStream.writeLong(entry.getValue().lastModifiedNanos());
+                    outputStream.writeShort(entry.getValue().value().length);
+                    outputStream.write(entry.getValue().value());
+                }
+            }
+            try {
+                Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns the checksum of specified file, either from cache or by computing it.
+     *
+     * @param path file
+     * @param algorithm checksum algorithm
+     * @return checksum value
+     * @throws IOException on error when reading file
+     */
+    public byte[] compute(Path path, ChecksumAlgorithm algorithm) throws IOException {
+        assertArgumentNotNull("algorithm", algorithm);
+        return compute(path, List.of(algorithm)).get(algorithm);
+    }
+
+    /**
+     * Returns the checksums of specified file by all specified algorithms. Checksums not cached are computed in
+     * a single pass, see {@link Checksums#compute(Path, List)}.
+     *
+     * @param path file
+     * @param algorithms checksum algorithms
+     * @return checksum values by algorithm, in order as specified
+     * @throws IOException on error when reading file
+     */
+    public Map<ChecksumAlgorithm, byte[]> compute(Path path, List<? extends ChecksumAlgorithm> algorithms) throws IOException {
+        assertArgumentNotNull("path", path);
+        assertArgumentNotNull("algorithms", algorithms);
+        if (!Files.isRegularFile(path))
+            throw new IllegalArgumentException("Specified file not existing: [" + path.toAbsolutePath() + "].");
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        String fileIdentity = getFileIdentity(path, attributes);
+
+        Map<ChecksumAlgorithm, byte[]> values = new LinkedHashMap<>();
+        List<ChecksumAlgorithm> missingAlgorithms = new ArrayList<>();
+        synchronized (this) {
+            for (ChecksumAlgorithm algorithm : algorithms) {
+                if (values.containsKey(algorithm) || missingAlgorithms.contains(algorithm)) continue;
+                CachedChecksum cachedChecksum = this.cache.get(new Key(fileIdentity, algorithm.getName()));
+                if (cachedChecksum != null && isValid(cachedChecksum, attributes)) {
+                    this.hitCount++;
+                    values.put(algorithm, cachedChecksum.value().clone());
+                } else {
+                    this.missCount++;
+                    values.put(algorithm, null);
+                    missingAlgorithms.add(algorithm);
+                }
+            }
+        }
+        if (missingAlgorithms.isEmpty()) return values;
+
+        Map<ChecksumAlgorithm, byte[]> computedValues = Checksums.compute(path, missingAlgorithms);
+        values.putAll(computedValues);
+
+        // file changed while being read: values are returned, but not cached
+        BasicFileAttributes attributesAfter = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attributesAfter.size() != attributes.size()
+                || !attributesAfter.lastModifiedTime().equals(attributes.lastModifiedTime())) return values;
+
+        long lastModifiedNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        synchronized (this) {
+            computedValues.forEach((algorithm, value) -> this.cache.put(
+                    new Key(fileIdentity, algorithm.getName()),
+                    new CachedChecksum(attributes.size(), lastModifiedNanos, value.clone())));
+        }
+        return values;
+    }
+
+    /**
+     * Removes all checksums of specified file from cache.
+     *
+     * @param path file
+     * @throws IOException on error when reading file attributes
+     */
+    public void invalidate(Path path) throws IOException {
+        assertArgumentNotNull("path", path);
+        if (!Files.exists(path)) return;
+        String fileIdentity = getFileIdentity(path, Files.readAttributes(path, BasicFileAttributes.class));
+        synchronized (this) {
+            this.cache.keySet().removeIf(key -> key.fileIdentity().equals(fileIdentity));
+        }
+    }
+
+    /**
+     * Removes all checksums from cache. Statistics are kept.
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+    }
+
+    /**
+     * @return number of currently cached checksums
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    private static String getFileIdentity(Path path, BasicFileAttributes attributes) {
+        Object fileKey = attributes.fileKey();
+        return fileKey != null ? fileKey.toString() : path.toAbsolutePath().normalize().toString();
+    }
+
+    private static boolean isValid(CachedChecksum cachedChecksum, BasicFileAttributes attributes) {
+        return cachedChecksum.size() == attributes.size()
+                && cachedChecksum.lastModifiedNanos() == attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+}
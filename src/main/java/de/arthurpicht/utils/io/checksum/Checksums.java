@@ -1,38 +1,421 @@
 package de.arthurpicht.utils.io.checksum;
 
-import java.io.FileInputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.zip.CRC32;
 
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
 public class Checksums {
 
+    /**
+     * Strategy for reading file content when computing checksums.
+     */
+    public enum ReadStrategy {
+
+        /**
+         * Reads file content through a {@link FileChannel} into a reused direct buffer of specified size.
+         * Avoids copying data to the java heap.
+         */
+        DIRECT_BUFFER,
+
+        /**
+         * Maps file content region by region of specified size into memory. Avoids copying data from the
+         * page cache.
+         */
+        MEMORY_MAPPED
+    }
+
+    /**
+     * Receiver of file content as read by specified read strategy.
+     */
+    private interface ContentConsumer {
+
+        /**
+         * Consumes the remaining bytes of specified buffer. Buffer position is advanced to its limit.
+         */
+        void update(ByteBuffer buffer);
+    }
+
+    public static final ReadStrategy DEFAULT_READ_STRATEGY = ReadStrategy.DIRECT_BUFFER;
+    public static final int DEFAULT_BUFFER_SIZE = 128 * 1024;
+    public static final int DEFAULT_MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> THREAD_LOCAL_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE));
+
+    /**
+     * Result of checksumming multiple files: the checksum of each file and the combined checksum over the
+     * concatenated content of all files.
+     */
+    public static class Crc32Result {
+
+        private final List<Path> paths;
+        private final long[] fileCrc32s;
+        private final long crc32;
+
+        private Crc32Result(List<Path> paths, long[] fileCrc32s, long crc32) {
+            this.paths = paths;
+            this.fileCrc32s = fileCrc32s;
+            this.crc32 = crc32;
+        }
+
+        /**
+         * @return combined CRC32 checksum over the concatenated content of all files
+         */
+        public long getCrc32() {
+            return this.crc32;
+        }
+
+        /**
+         * @return files in order as specified
+         */
+        public List<Path> getPaths() {
+            return this.paths;
+        }
+
+        /**
+         * @param index index of file in list as specified
+         * @return CRC32 checksum of file
+         */
+        public long getFileCrc32(int index) {
+            return this.fileCrc32s[index];
+        }
+
+        /**
+         * @return CRC32 checksums of all files, in order as specified
+         */
+        public Map<Path, Long> getFileCrc32s() {
+            Map<Path, Long> fileCrc32s = new LinkedHashMap<>();
+            for (int i = 0; i < this.fileCrc32s.length; i++) {
+                fileCrc32s.put(this.paths.get(i), this.fileCrc32s[i]);
+            }
+            return fileCrc32s;
+        }
+    }
+
     public static long computeCrc32(Path path) throws IOException {
+        return computeCrc32(path, DEFAULT_READ_STRATEGY, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Computes the CRC32 checksum of specified file by specified read strategy.
+     *
+     * @param path file
+     * @param readStrategy strategy for reading file content
+     * @param bufferSize size of read buffer or mapped region, see {@link #DEFAULT_BUFFER_SIZE} and
+     *                   {@link #DEFAULT_MAPPED_REGION_SIZE}
+     * @return CRC32 checksum
+     * @throws IOException on error when reading file
+     */
+    public static long computeCrc32(Path path, ReadStrategy readStrategy, int bufferSize) throws IOException {
+        assertArgumentNotNull("path", path);
+        assertArgumentNotNull("readStrategy", readStrategy);
         CRC32 crc32 = new CRC32();
-        try (InputStream inputStream = new FileInputStream(path.toFile())) {
-            byte[] buffer = new byte[1024];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                crc32.update(buffer, 0, bytesRead);
+        update(crc32::update, path, readStrategy, bufferSize);
+        return crc32.getValue();
+    }
+
+    /**
+     * Computes the CRC32 checksum of specified file in parallel. See {@link #computeCrc32Parallel(Path, int)}.
+     * Chunk size is {@link #DEFAULT_PARALLEL_CHUNK_SIZE}.
+     *
+     * @param path file
+     * @return CRC32 checksum, identical to {@link #computeCrc32(Path)}
+     * @throws IOException on error when reading file
+     */
+    public static long computeCrc32Parallel(Path path) throws IOException {
+        return computeCrc32Parallel(path, DEFAULT_PARALLEL_CHUNK_SIZE);
+    }
+
+    /**
+     * Computes the CRC32 checksum of specified file in parallel. The file is split into chunks of specified size,
+     * which are checksummed on the common {@link ForkJoinPool}. Partial checksums are combined, so that the
+     * result is identical to the sequentially computed checksum. Files not larger than one chunk are
+     * checksummed sequentially.
+     *
+     * @param path file
+     * @param chunkSize size of chunks in bytes
+     * @return CRC32 checksum, identical to {@link #computeCrc32(Path)}
+     * @throws IOException on error when reading file
+     */
+    public static long computeCrc32Parallel(Path path, int chunkSize) throws IOException {
+        assertArgumentNotNull("path", path);
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be greater than 0");
+
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            if (size <= chunkSize) {
+                CRC32 crc32 = new CRC32();
+                updateBuffered(crc32::update, fileChannel, 0, size, ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE));
+                return crc32.getValue();
+            }
+            try {
+                return ForkJoinPool.commonPool().invoke(new Crc32ChunkTask(fileChannel, 0, size, chunkSize));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
-            return crc32.getValue();
         }
     }
 
+    /**
+     * Combines the CRC32 checksums of two consecutive byte sequences to the CRC32 checksum of their
+     * concatenation.
+     *
+     * @param crc1 CRC32 of first byte sequence
+     * @param crc2 CRC32 of second byte sequence
+     * @param length2 length of second byte sequence in bytes
+     * @return CRC32 of concatenation
+     */
+    public static long combineCrc32(long crc1, long crc2, long length2) {
+        return Crc32Combiner.combine(crc1, crc2, length2);
+    }
+
     public static long computeCrc32(List<Path> paths) throws IOException {
+        return computeCrc32(paths, DEFAULT_READ_STRATEGY, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Computes one CRC32 checksum over the concatenated content of specified files by specified read strategy.
+     *
+     * @param paths files
+     * @param readStrategy strategy for reading file content
+     * @param bufferSize size of read buffer or mapped region
+     * @return CRC32 checksum
+     * @throws IOException on error when reading files
+     */
+    public static long computeCrc32(List<Path> paths, ReadStrategy readStrategy, int bufferSize) throws IOException {
+        assertArgumentNotNull("paths", paths);
+        assertArgumentNotNull("readStrategy", readStrategy);
         CRC32 crc32 = new CRC32();
+        ByteBuffer buffer = readBuffer(readStrategy, bufferSize);
         for (Path file : paths) {
-            try (InputStream inputStream = new FileInputStream(file.toFile())) {
-                byte[] buffer = new byte[1024];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    crc32.update(buffer, 0, bytesRead);
+            update(crc32::update, file, readStrategy, bufferSize, buffer);
+        }
+        return crc32.getValue();
+    }
+
+    /**
+     * Computes one CRC32 checksum over the concatenated content of specified files, identical to
+     * {@link #computeCrc32(List)}. Files are read concurrently on the common {@link ForkJoinPool} and their
+     * checksums are combined in list order.
+     *
+     * @param paths files
+     * @return CRC32 checksum
+     * @throws IOException on error when reading files
+     */
+    public static long computeCrc32Parallel(List<Path> paths) throws IOException {
+        return computeCrc32PerFileParallel(paths).getCrc32();
+    }
+
+    /**
+     * Computes the CRC32 checksums of specified files concurrently on the common {@link ForkJoinPool}. The
+     * result contains the checksum of each file as well as the combined checksum over the concatenated content
+     * of all files, identical to {@link #computeCrc32(List)}.
+     *
+     * @param paths files
+     * @return combined and per-file CRC32 checksums
+     * @throws IOException on error when reading files
+     */
+    public static Crc32Result computeCrc32PerFileParallel(List<Path> paths) throws IOException {
+        assertArgumentNotNull("paths", paths);
+        List<long[]> crcAndSizes;
+        try {
+            crcAndSizes = paths.parallelStream()
+                    .map(Checksums::computeCrc32AndSize)
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long crc32 = 0;
+        long[] fileCrc32s = new long[crcAndSizes.size()];
+        for (int i = 0; i < fileCrc32s.length; i++) {
+            long[] crcAndSize = crcAndSizes.get(i);
+            fileCrc32s[i] = crcAndSize[0];
+            crc32 = Crc32Combiner.combine(crc32, crcAndSize[0], crcAndSize[1]);
+        }
+        return new Crc32Result(List.copyOf(paths), fileCrc32s, crc32);
+    }
+
+    private static long[] computeCrc32AndSize(Path path) {
+        CRC32 crc32 = new CRC32();
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = updateBuffered(crc32::update, fileChannel, 0, Long.MAX_VALUE, THREAD_LOCAL_BUFFER.get());
+            return new long[]{crc32.getValue(), size};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Computes the checksum of specified file by specified algorithm.
+     *
+     * @param path file
+     * @param algorithm checksum algorithm, e.g. {@link StandardChecksumAlgorithm#SHA_256}
+     * @return checksum value, see {@link ChecksumAlgorithm.Hasher#getValue()}
+     * @throws IOException on error when reading file
+     */
+    public static byte[] compute(Path path, ChecksumAlgorithm algorithm) throws IOException {
+        assertArgumentNotNull("algorithm", algorithm);
+        return compute(path, List.of(algorithm)).get(algorithm);
+    }
+
+    public static Map<ChecksumAlgorithm, byte[]> compute(Path path, List<? extends ChecksumAlgorithm> algorithms) throws IOException {
+        return compute(path, algorithms, DEFAULT_READ_STRATEGY, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Computes checksums of specified file by all specified algorithms in a single pass. The file is read once
+     * and each chunk read is fed to all algorithms from the same buffer.
+     *
+     * @param path file
+     * @param algorithms checksum algorithms
+     * @param readStrategy strategy for reading file content
+     * @param bufferSize size of read buffer or mapped region
+     * @return checksum values by algorithm, in order as specified
+     * @throws IOException on error when reading file
+     */
+    public static Map<ChecksumAlgorithm, byte[]> compute(
+            Path path,
+            List<? extends ChecksumAlgorithm> algorithms,
+            ReadStrategy readStrategy,
+            int bufferSize) throws IOException {
+
+        assertArgumentNotNull("path", path);
+        assertArgumentNotNull("algorithms", algorithms);
+        assertArgumentNotNull("readStrategy", readStrategy);
+
+        MultiHasher multiHasher = new MultiHasher(algorithms);
+        update(multiHasher::update, path, readStrategy, bufferSize);
+        return multiHasher.getValues();
+    }
+
+    /**
+     * Updates specified consumer with the content of specified file.
+     */
+    private static void update(ContentConsumer consumer, Path path, ReadStrategy readStrategy, int bufferSize) throws IOException {
+        update(consumer, path, readStrategy, bufferSize, readBuffer(readStrategy, bufferSize));
+    }
+
+    /**
+     * Updates specified consumer with the content of specified file, reading into specified buffer as obtained by
+     * {@link #readBuffer(ReadStrategy, int)}.
+     */
+    private static void update(ContentConsumer consumer, Path path, ReadStrategy readStrategy, int bufferSize, ByteBuffer buffer) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (readStrategy == ReadStrategy.MEMORY_MAPPED) {
+                updateMapped(consumer, fileChannel, 0, fileChannel.size(), bufferSize);
+            } else {
+                updateBuffered(consumer, fileChannel, 0, Long.MAX_VALUE, buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns the read buffer for specified read strategy, or null if none is needed. Buffers of default size are
+     * reused per thread, others are allocated once per call, to be reused for all files read by this call.
+     */
+    private static ByteBuffer readBuffer(ReadStrategy readStrategy, int bufferSize) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("bufferSize must be greater than 0");
+        if (readStrategy == ReadStrategy.MEMORY_MAPPED) return null;
+        if (bufferSize == DEFAULT_BUFFER_SIZE) return THREAD_LOCAL_BUFFER.get();
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Updates specified consumer with at most length bytes of specified channel, starting at position, by
+     * reading into specified buffer.
+     *
+     * @return number of bytes read
+     */
+    private static long updateBuffered(ContentConsumer consumer, FileChannel fileChannel, long position, long length, ByteBuffer buffer) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            buffer.clear();
+            if (buffer.capacity() > remaining) buffer.limit((int) remaining);
+            int bytesRead = fileChannel.read(buffer, position);
+            if (bytesRead < 0) break;
+            buffer.flip();
+            consumer.update(buffer);
+            position += bytesRead;
+            remaining -= bytesRead;
+        }
+        return length - remaining;
+    }
+
+    /**
+     * Updates specified consumer with length bytes of specified channel, starting at position, by mapping
+     * regions of regionSize into memory.
+     */
+    private static void updateMapped(ContentConsumer consumer, FileChannel fileChannel, long position, long length, int regionSize) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            long size = Math.min(regionSize, end - position);
+            MappedByteBuffer mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            consumer.update(mappedByteBuffer);
+            position += size;
+        }
+    }
+
+    /**
+     * Computes the CRC32 checksum of a range of a file by recursively splitting it into chunks.
+     */
+    private static class Crc32ChunkTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel fileChannel;
+        private final long position;
+        private final long length;
+        private final int chunkSize;
+
+        Crc32ChunkTask(FileChannel fileChannel, long position, long length, int chunkSize) {
+            this.fileChannel = fileChannel;
+            this.position = position;
+            this.length = length;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.length <= this.chunkSize) {
+                CRC32 crc32 = new CRC32();
+                try {
+                    long bytesRead = updateBuffered(crc32::update, this.fileChannel, this.position, this.length,
+                            THREAD_LOCAL_BUFFER.get());
+                    // the file was truncated while reading, combining by nominal lengths would be wrong
+                    if (bytesRead < this.length)
+                        throw new EOFException("Unexpected end of file at position "
+                                + (this.position + bytesRead) + ", expected " + this.length + " bytes.");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+                return crc32.getValue();
             }
+
+            long chunks = (this.length + this.chunkSize - 1) / this.chunkSize;
+            long leftLength = (chunks / 2) * this.chunkSize;
+            long rightLength = this.length - leftLength;
+            Crc32ChunkTask left = new Crc32ChunkTask(this.fileChannel, this.position, leftLength, this.chunkSize);
+            Crc32ChunkTask right = new Crc32ChunkTask(this.fileChannel, this.position + leftLength, rightLength, this.chunkSize);
+            left.fork();
+            long rightCrc = right.compute();
+            long leftCrc = left.join();
+            return Crc32Combiner.combine(leftCrc, rightCrc, rightLength);
         }
-        return crc32.getValue();
     }
 
 }
@@ -0,0 +1,72 @@
+package de.arthurpicht.utils.io.checksum;
+
+/**
+ * Combination of CRC32 values of consecutive byte sequences, as done by zlib's crc32_combine. CRC32 is linear
+ * over GF(2), so the CRC32 of a concatenation A|B can be computed from crc(A), crc(B) and the length of B as
+ * crc(A) * x^(8 * length(B)) mod p xor crc(B), where p is the reflected CRC32 polynomial.
+ */
+class Crc32Combiner {
+
+    private static final int POLYNOMIAL = 0xEDB88320;
+
+    /**
+     * x^(2^n) mod p for n = 0..31 in reflected representation.
+     */
+    private static final int[] X_POW_2_POW_N = new int[32];
+
+    static {
+        int p = 1 << 30;
+        X_POW_2_POW_N[0] = p;
+        for (int n = 1; n < 32; n++) {
+            p = multiplyModP(p, p);
+            X_POW_2_POW_N[n] = p;
+        }
+    }
+
+    private Crc32Combiner() {
+    }
+
+    /**
+     * @param crc1 CRC32 of first byte sequence
+     * @param crc2 CRC32 of second byte sequence
+     * @param length2 length of second byte sequence
+     * @return CRC32 of concatenation of first and second byte sequence
+     */
+    static long combine(long crc1, long crc2, long length2) {
+        if (length2 < 0) throw new IllegalArgumentException("length2 must not be negative");
+        int shifted = multiplyModP(xPow8nModP(length2), (int) crc1);
+        return (shifted ^ (int) crc2) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Multiplies a(x) and b(x) modulo p, both in reflected representation.
+     */
+    private static int multiplyModP(int a, int b) {
+        int m = 1 << 31;
+        int p = 0;
+        while (true) {
+            if ((a & m) != 0) {
+                p ^= b;
+                if ((a & (m - 1)) == 0) break;
+            }
+            m >>>= 1;
+            b = (b & 1) != 0 ? (b >>> 1) ^ POLYNOMIAL : b >>> 1;
+        }
+        return p;
+    }
+
+    /**
+     * @return x^(8 * n) mod p
+     */
+    private static int xPow8nModP(long n) {
+        int p = 1 << 31;
+        int k = 3;
+        while (n != 0) {
+            if ((n & 1) != 0) p = multiplyModP(X_POW_2_POW_N[k & 31], p);
+            n >>>= 1;
+            k++;
+        }
+        return p;
+    }
+
+}
@@ -0,0 +1,393 @@
+package de.arthurpicht.utils.io.checksum;
+
+import de.arthurpicht.utils.io.nio2.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Merkle tree of a directory tree. The hash of a file is the checksum of its content. The hash of a directory is
+ * computed over name, type and hash of its children, sorted by name. So the root hash changes if any file
+ * content, file name or directory structure changes, and differing subtrees can be located by descending only
+ * into children with differing hashes. Symbolic links are ignored.
+ * <br>
+ * File hashes are computed in parallel on the common {@link java.util.concurrent.ForkJoinPool}. A tree can be
+ * saved and loaded. {@link #refresh()} rehashes only files whose size or last modified time has changed and only
+ * the directories containing them.
+ * <br>
+ * Example:
+ * <pre>
+ *     MerkleTree previous = MerkleTree.load(treeFile, StandardChecksumAlgorithm.XXHASH64);
+ *     MerkleTree current = previous.refresh();
+ *     List&lt;MerkleTree.Change&gt; changes = previous.diff(current);
+ *     current.save(treeFile);
+ * </pre>
+ */
+public class MerkleTree {
+
+    private static final int MAGIC = 0x41504D54;
+    private static final int VERSION = 1;
+    private static final byte TYPE_FILE = 0;
+    private static final byte TYPE_DIRECTORY = 1;
+
+    public enum ChangeType {ADDED, REMOVED, MODIFIED}
+
+    /**
+     * Change of a file or directory between two trees.
+     *
+     * @param path path relative to root directory, with '/' as separator
+     * @param changeType type of change
+     */
+    public record Change(String path, ChangeType changeType) {
+    }
+
+    /**
+     * Node of a Merkle tree, representing a file or a directory.
+     */
+    public static class Node {
+
+        private final String name;
+        private final boolean directory;
+        private final long size;
+        private final long lastModifiedNanos;
+        private final SortedMap<String, Node> children;
+        private byte[] hash;
+
+        private Node(String name, boolean directory, long size, long lastModifiedNanos, byte[] hash) {
+            this.name = name;
+            this.directory = directory;
+            this.size = size;
+            this.lastModifiedNanos = lastModifiedNanos;
+            this.children = directory ? new TreeMap<>() : Collections.emptySortedMap();
+            this.hash = hash;
+        }
+
+        /**
+         * @return file name, empty for root node
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isDirectory() {
+            return this.directory;
+        }
+
+        /**
+         * @return file size in bytes, 0 for directories
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        public byte[] getHash() {
+            return this.hash.clone();
+        }
+
+        /**
+         * @return child nodes, sorted by name
+         */
+        public Collection<Node> getChildren() {
+            return Collections.unmodifiableCollection(this.children.values());
+        }
+    }
+
+    private record PendingFile(Node node, Path path) {
+    }
+
+    private final Path root;
+    private final ChecksumAlgorithm algorithm;
+    private final Node rootNode;
+    private final int hashedFileCount;
+
+    private MerkleTree(Path root, ChecksumAlgorithm algorithm, Node rootNode, int hashedFileCount) {
+        this.root = root;
+        this.algorithm = algorithm;
+        this.rootNode = rootNode;
+        this.hashedFileCount = hashedFileCount;
+    }
+
+    /**
+     * Builds the Merkle tree of specified directory.
+     *
+     * @param root root directory
+     * @param algorithm checksum algorithm for file content and directory hashes
+     * @return Merkle tree
+     * @throws IOException on error when reading directory tree
+     * @throws IllegalArgumentException if root directory does not exist
+     */
+    public static MerkleTree build(Path root, ChecksumAlgorithm algorithm) throws IOException {
+        assertArgumentNotNull("root", root);
+        assertArgumentNotNull("algorithm", algorithm);
+        return build(root.toAbsolutePath().normalize(), algorithm, null);
+    }
+
+    /**
+     * Builds the Merkle tree of the root directory of this tree again. Hashes of files with unchanged size and
+     * last modified time are taken over from this tree, as are hashes of directories without changed
+     * descendants.
+     *
+     * @return Merkle tree reflecting the current state of the directory tree
+     * @throws IOException on error when reading directory tree
+     */
+    public MerkleTree refresh() throws IOException {
+        return build(this.root, this.algorithm, this.rootNode);
+    }
+
+    private static MerkleTree build(Path root, ChecksumAlgorithm algorithm, Node previousRootNode) throws IOException {
+        if (!Files.isDirectory(root))
+            throw new IllegalArgumentException("Specified directory not existing: [" + root.toAbsolutePath() + "].");
+
+        List<PendingFile> pendingFiles = new ArrayList<>();
+        Node rootNode = scanDirectory(root, "", previousRootNode, pendingFiles);
+
+        try {
+            pendingFiles.parallelStream().forEach(pendingFile -> {
+                try {
+                    pendingFile.node().hash = Checksums.compute(pendingFile.path(), algorithm);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        computeDirectoryHashes(rootNode, algorithm);
+        return new MerkleTree(root, algorithm, rootNode, pendingFiles.size());
+    }
+
+    private static Node scanDirectory(Path dir, String name, Node previous, List<PendingFile> pendingFiles) throws IOException {
+        Node node = new Node(name, true, 0, 0, null);
+        List<Path> children;
+        try (Stream<Path> stream = Files.list(dir)) {
+            children = stream.toList();
+        }
+
+        boolean unchanged = previous != null && previous.directory;
+        for (Path child : children) {
+            BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            String childName = child.getFileName().toString();
+            Node previousChild = previous != null ? previous.children.get(childName) : null;
+
+            Node childNode;
+            if (attributes.isDirectory()) {
+                childNode = scanDirectory(child, childName, previousChild, pendingFiles);
+            } else if (attributes.isRegularFile()) {
+                childNode = scanFile(child, childName, attributes, previousChild, pendingFiles);
+            } else {
+                continue;
+            }
+            node.children.put(childName, childNode);
+            unchanged &= previousChild != null && childNode.hash != null && Arrays.equals(childNode.hash, previousChild.hash);
+        }
+        unchanged &= previous != null && node.children.size() == previous.children.size();
+
+        if (unchanged) node.hash = previous.hash;
+        return node;
+    }
+
+    private static Node scanFile(Path file, String name, BasicFileAttributes attributes, Node previous, List<PendingFile> pendingFiles) {
+        long lastModifiedNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        boolean unchanged = previous != null && !previous.directory
+                && previous.size == attributes.size() && previous.lastModifiedNanos == lastModifiedNanos;
+
+        Node node = new Node(name, false, attributes.size(), lastModifiedNanos, unchanged ? previous.hash : null);
+        if (!unchanged) pendingFiles.add(new PendingFile(node, file));
+        return node;
+    }
+
+    private static void computeDirectoryHashes(Node node, ChecksumAlgorithm algorithm) {
+        if (!node.directory || node.hash != null) return;
+
+        ChecksumAlgorithm.Hasher hasher = algorithm.newHasher();
+        for (Node child : node.children.values()) {
+            computeDirectoryHashes(child, algorithm);
+            byte[] name = child.name.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + name.length + child.hash.length);
+            buffer.put(child.directory ? TYPE_DIRECTORY : TYPE_FILE)
+                    .putInt(name.length)
+                    .put(name)
+                    .put(child.hash)
+                    .flip();
+            hasher.update(buffer);
+        }
+        node.hash = hasher.getValue();
+    }
+
+    /**
+     * Loads a tree as saved by {@link #save(Path)}.
+     *
+     * @param file tree file
+     * @param algorithm checksum algorithm the tree was built with
+     * @return Merkle tree
+     * @throws IOException on error when reading tree file, if tree file is corrupt or if tree was built with
+     *                     another algorithm
+     */
+    public static MerkleTree load(Path file, ChecksumAlgorithm algorithm) throws IOException {
+        assertArgumentNotNull("file", file);
+        assertArgumentNotNull("algorithm", algorithm);
+        try (DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (inputStream.readInt() != MAGIC)
+                throw new IOException("Not a merkle tree file: [" + file.toAbsolutePath() + "].");
+            int version = inputStream.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported merkle tree file version: " + version + ".");
+            Path root = Paths.get(inputStream.readUTF());
+            String algorithmName = inputStream.readUTF();
+            if (!algorithmName.equals(algorithm.getName()))
+                throw new IOException("Merkle tree file was built with algorithm [" + algorithmName + "], " +
+                        "not [" + algorithm.getName() + "].");
+            return new MerkleTree(root, algorithm, readNode(inputStream), 0);
+        } catch (EOFException e) {
+            throw new IOException("Merkle tree file is truncated: [" + file.toAbsolutePath() + "].", e);
+        }
+    }
+
+    /**
+     * Saves this tree to specified file. The file is replaced atomically, if supported by the file system.
+     *
+     * @param file tree file
+     * @throws IOException on error when writing tree file
+     */
+    public void save(Path file) throws IOException {
+        assertArgumentNotNull("file", file);
+        Path tempFile = FileUtils.createTempFileForReplacement(file, ".merkleTree-");
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeUTF(this.root.toString());
+                outputStream.writeUTF(this.algorithm.getName());
+                writeNode(outputStream, this.rootNode);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void writeNode(DataOutputStream outputStream, Node node) throws IOException {
+        outputStream.writeUTF(node.name);
+        outputStream.writeByte(node.directory ? TYPE_DIRECTORY : TYPE_FILE);
+        outputStream.writeLong(node.size);
+        outputStream.writeLong(node.lastModifiedNanos);
+        outputStream.writeShort(node.hash.length);
+        outputStream.write(node.hash);
+        if (node.directory) {
+            outputStream.writeInt(node.children.size());
+            for (Node child : node.children.values()) writeNode(outputStream, child);
+        }
+    }
+
+    private static Node readNode(DataInputStream inputStream) throws IOException {
+        String name = inputStream.readUTF();
+        boolean directory = inputStream.readByte() == TYPE_DIRECTORY;
+        long size = inputStream.readLong();
+        long lastModifiedNanos = inputStream.readLong();
+        byte[] hash = new byte[inputStream.readUnsignedShort()];
+        inputStream.readFully(hash);
+        Node node = new Node(name, directory, size, lastModifiedNanos, hash);
+        if (directory) {
+            int childCount = inputStream.readInt();
+            for (int i = 0; i < childCount; i++) {
+                Node child = readNode(inputStream);
+                node.children.put(child.name, child);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Determines changes from this tree to specified tree. Only subtrees with differing hashes are visited. An
+     * added or removed directory is reported as one change, without its descendants.
+     *
+     * @param other tree to compare to, built with same algorithm
+     * @return changes, sorted by path
+     */
+    public List<Change> diff(MerkleTree other) {
+        assertArgumentNotNull("other", other);
+        if (!this.algorithm.getName().equals(other.algorithm.getName()))
+            throw new IllegalArgumentException("Merkle trees built with different algorithms: " +
+                    "[" + this.algorithm.getName() + "], [" + other.algorithm.getName() + "].");
+        List<Change> changes = new ArrayList<>();
+        diff(this.rootNode, other.rootNode, "", changes);
+        return changes;
+    }
+
+    private static void diff(Node node, Node otherNode, String path, List<Change> changes) {
+        if (Arrays.equals(node.hash, otherNode.hash)) return;
+        if (!node.directory || !otherNode.directory) {
+            changes.add(new Change(path, ChangeType.MODIFIED));
+            return;
+        }
+
+        SortedSet<String> names = new TreeSet<>(node.children.keySet());
+        names.addAll(otherNode.children.keySet());
+        for (String name : names) {
+            String childPath = path.isEmpty() ? name : path + "/" + name;
+            Node child = node.children.get(name);
+            Node otherChild = otherNode.children.get(name);
+            if (child == null) {
+                changes.add(new Change(childPath, ChangeType.ADDED));
+            } else if (otherChild == null) {
+                changes.add(new Change(childPath, ChangeType.REMOVED));
+            } else {
+                diff(child, otherChild, childPath, changes);
+            }
+        }
+    }
+
+    /**
+     * @param path path relative to root directory, with '/' as separator, empty for root node
+     * @return node of specified path
+     */
+    public Optional<Node> getNode(String path) {
+        assertArgumentNotNull("path", path);
+        Node node = this.rootNode;
+        if (path.isEmpty()) return Optional.of(node);
+        for (String name : path.split("/")) {
+            node = node.children.get(name);
+            if (node == null) return Optional.empty();
+        }
+        return Optional.of(node);
+    }
+
+    public Path getRoot() {
+        return this.root;
+    }
+
+    public ChecksumAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    public Node getRootNode() {
+        return this.rootNode;
+    }
+
+    public byte[] getRootHash() {
+        return this.rootNode.getHash();
+    }
+
+    /**
+     * @return number of files whose content was hashed when building this tree, 0 for loaded trees
+     */
+    public int getHashedFileCount() {
+        return this.hashedFileCount;
+    }
+
+}
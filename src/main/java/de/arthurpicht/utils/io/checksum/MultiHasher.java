@@ -0,0 +1,76 @@
+package de.arthurpicht.utils.io.checksum;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Hashers of several checksum algorithms, updated together from the same bytes. Used by
+ * {@link Checksums#compute(java.nio.file.Path, List)} and by the checksum streams of package
+ * {@code de.arthurpicht.utils.io.stream}. Instances are not thread safe.
+ */
+public class MultiHasher {
+
+    private final Map<ChecksumAlgorithm, ChecksumAlgorithm.Hasher> hashers = new LinkedHashMap<>();
+    private long byteCount = 0;
+
+    /**
+     * @param algorithms checksum algorithms, duplicates are computed once
+     */
+    public MultiHasher(List<? extends ChecksumAlgorithm> algorithms) {
+        assertArgumentNotNull("algorithms", algorithms);
+        for (ChecksumAlgorithm algorithm : algorithms) {
+            this.hashers.computeIfAbsent(algorithm, ChecksumAlgorithm::newHasher);
+        }
+    }
+
+    /**
+     * Updates all hashers with the remaining bytes of specified buffer, rewinding the buffer for each of them.
+     * Buffer position is advanced to its limit.
+     */
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        for (ChecksumAlgorithm.Hasher hasher : this.hashers.values()) {
+            buffer.position(position);
+            hasher.update(buffer);
+        }
+        this.byteCount += buffer.limit() - position;
+        buffer.position(buffer.limit());
+    }
+
+    public void update(byte[] b, int off, int len) {
+        if (len <= 0) return;
+        update(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * @param algorithm one of the algorithms specified on construction
+     * @return checksum of all bytes updated so far
+     */
+    public byte[] getValue(ChecksumAlgorithm algorithm) {
+        ChecksumAlgorithm.Hasher hasher = this.hashers.get(algorithm);
+        if (hasher == null)
+            throw new IllegalArgumentException("Checksum algorithm not computed: [" + algorithm.getName() + "].");
+        return hasher.getValue();
+    }
+
+    /**
+     * @return checksums of all bytes updated so far, by algorithm in order as specified on construction
+     */
+    public Map<ChecksumAlgorithm, byte[]> getValues() {
+        Map<ChecksumAlgorithm, byte[]> values = new LinkedHashMap<>();
+        this.hashers.forEach((algorithm, hasher) -> values.put(algorithm, hasher.getValue()));
+        return values;
+    }
+
+    /**
+     * @return number of bytes updated so far
+     */
+    public long getByteCount() {
+        return this.byteCount;
+    }
+
+}
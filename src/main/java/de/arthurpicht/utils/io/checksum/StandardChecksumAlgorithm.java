@@ -0,0 +1,134 @@
+package de.arthurpicht.utils.io.checksum;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Adler32;
+import java.util.zip.Checksum;
+
+/**
+ * Checksum algorithms provided by this library.
+ */
+public enum StandardChecksumAlgorithm implements ChecksumAlgorithm {
+
+    /**
+     * CRC32 as used by zip and gzip. 4 bytes.
+     */
+    CRC32("CRC32") {
+        @Override
+        public Hasher newHasher() {
+            return new ChecksumHasher(new java.util.zip.CRC32(), 4);
+        }
+    },
+
+    /**
+     * CRC32C (Castagnoli). Computed by hardware instructions where available. 4 bytes.
+     */
+    CRC32C("CRC32C") {
+        @Override
+        public Hasher newHasher() {
+            return new ChecksumHasher(new java.util.zip.CRC32C(), 4);
+        }
+    },
+
+    /**
+     * Adler32 as used by zlib. Fast, but weak for short input. 4 bytes.
+     */
+    ADLER32("Adler32") {
+        @Override
+        public Hasher newHasher() {
+            return new ChecksumHasher(new Adler32(), 4);
+        }
+    },
+
+    /**
+     * xxHash64 with seed 0. Fast non-cryptographic hash, e.g. for deduplication. 8 bytes.
+     */
+    XXHASH64("xxHash64") {
+        @Override
+        public Hasher newHasher() {
+            return new ChecksumHasher(new XxHash64(), 8);
+        }
+    },
+
+    /**
+     * SHA-256 cryptographic digest. 32 bytes.
+     */
+    SHA_256("SHA-256") {
+        @Override
+        public Hasher newHasher() {
+            return new MessageDigestHasher(getMessageDigest("SHA-256"));
+        }
+    };
+
+    private final String name;
+
+    StandardChecksumAlgorithm(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    private static MessageDigest getMessageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class ChecksumHasher implements Hasher {
+
+        private final Checksum checksum;
+        private final int length;
+
+        ChecksumHasher(Checksum checksum, int length) {
+            this.checksum = checksum;
+            this.length = length;
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            this.checksum.update(buffer);
+        }
+
+        @Override
+        public byte[] getValue() {
+            long value = this.checksum.getValue();
+            byte[] bytes = new byte[this.length];
+            for (int i = this.length - 1; i >= 0; i--) {
+                bytes[i] = (byte) value;
+                value >>>= 8;
+            }
+            return bytes;
+        }
+    }
+
+    private static class MessageDigestHasher implements Hasher {
+
+        private final MessageDigest messageDigest;
+
+        MessageDigestHasher(MessageDigest messageDigest) {
+            this.messageDigest = messageDigest;
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            this.messageDigest.update(buffer);
+        }
+
+        @Override
+        public byte[] getValue() {
+            try {
+                return ((MessageDigest) this.messageDigest.clone()).digest();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("MessageDigest does not support cloning: " + this.messageDigest.getAlgorithm(), e);
+            }
+        }
+    }
+
+}
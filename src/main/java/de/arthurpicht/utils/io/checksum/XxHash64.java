@@ -0,0 +1,140 @@
+package de.arthurpicht.utils.io.checksum;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * Pure java implementation of the 64 bit non-cryptographic hash function xxHash64 with seed 0. Input is processed
+ * in stripes of 32 bytes, remaining bytes are kept until the next update or the final value is requested.
+ */
+class XxHash64 implements Checksum {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE_SIZE = 32;
+
+    private final ByteBuffer pending = ByteBuffer.allocate(STRIPE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long totalLength;
+
+    XxHash64() {
+        reset();
+    }
+
+    @Override
+    public void update(int b) {
+        update(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        update(ByteBuffer.wrap(b, off, len));
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        ByteBuffer input = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int length = input.remaining();
+        buffer.position(buffer.limit());
+        this.totalLength += length;
+
+        int position = 0;
+        if (this.pending.position() > 0) {
+            int n = Math.min(length, this.pending.remaining());
+            this.pending.put(this.pending.position(), input, 0, n);
+            this.pending.position(this.pending.position() + n);
+            position = n;
+            if (this.pending.hasRemaining()) return;
+            processStripe(this.pending, 0);
+            this.pending.clear();
+        }
+
+        for (; position + STRIPE_SIZE <= length; position += STRIPE_SIZE) {
+            processStripe(input, position);
+        }
+
+        if (position < length) {
+            this.pending.put(0, input, position, length - position);
+            this.pending.position(length - position);
+        }
+    }
+
+    @Override
+    public long getValue() {
+        long hash;
+        if (this.totalLength >= STRIPE_SIZE) {
+            hash = Long.rotateLeft(this.v1, 1) + Long.rotateLeft(this.v2, 7)
+                    + Long.rotateLeft(this.v3, 12) + Long.rotateLeft(this.v4, 18);
+            hash = mergeRound(hash, this.v1);
+            hash = mergeRound(hash, this.v2);
+            hash = mergeRound(hash, this.v3);
+            hash = mergeRound(hash, this.v4);
+        } else {
+            hash = PRIME_5;
+        }
+        hash += this.totalLength;
+
+        int length = this.pending.position();
+        int position = 0;
+        for (; position + 8 <= length; position += 8) {
+            hash ^= round(0, this.pending.getLong(position));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        if (position + 4 <= length) {
+            hash ^= (this.pending.getInt(position) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            position += 4;
+        }
+        for (; position < length; position++) {
+            hash ^= (this.pending.get(position) & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    @Override
+    public void reset() {
+        this.v1 = PRIME_1 + PRIME_2;
+        this.v2 = PRIME_2;
+        this.v3 = 0;
+        this.v4 = -PRIME_1;
+        this.totalLength = 0;
+        this.pending.clear();
+    }
+
+    private void processStripe(ByteBuffer input, int position) {
+        this.v1 = round(this.v1, input.getLong(position));
+        this.v2 = round(this.v2, input.getLong(position + 8));
+        this.v3 = round(this.v3, input.getLong(position + 16));
+        this.v4 = round(this.v4, input.getLong(position + 24));
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME_1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME_1 + PRIME_4;
+    }
+
+}
@@ -0,0 +1,148 @@
+package de.arthurpicht.utils.io.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands written data over to a separate thread that writes it to the target stream. Data is passed in chunks of
+ * a fixed size through a bounded queue, so producing data (e.g. reading files) and consuming data
+ * (e.g. compressing) run in parallel with bounded memory use. Errors on the consumer thread are rethrown to the
+ * producer on the next write, flush or close. Target stream is closed on close.
+ */
+class PipelinedOutputStream extends OutputStream {
+
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private record Chunk(byte[] data, int length) {
+    }
+
+    private final OutputStream target;
+    private final BlockingQueue<Chunk> queue;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final Thread consumer;
+    private final int chunkSize;
+
+    private byte[] buffer;
+    private int count = 0;
+    private boolean closed = false;
+    private volatile Throwable consumerError;
+
+    /**
+     * @param target stream written to by consumer thread
+     * @param chunkSize size of chunks handed over to consumer thread
+     * @param queueCapacity maximum number of chunks waiting for the consumer thread
+     */
+    PipelinedOutputStream(OutputStream target, int chunkSize, int queueCapacity) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be greater than 0");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity must be greater than 0");
+        this.target = target;
+        this.chunkSize = chunkSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.freeBuffers = new ArrayBlockingQueue<>(queueCapacity + 1);
+        this.buffer = new byte[chunkSize];
+        this.consumer = new Thread(this::consume, "pipelined-output-" + Integer.toHexString(hashCode()));
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (this.count == this.chunkSize) handOver();
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (this.count == this.chunkSize) handOver();
+            int n = Math.min(len, this.chunkSize - this.count);
+            System.arraycopy(b, off, this.buffer, this.count, n);
+            this.count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Hands over buffered data to consumer thread. Does not wait for the consumer thread to write it.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (this.count > 0) handOver();
+    }
+
+    /**
+     * Hands over remaining data, waits for the consumer thread to write all data and closes target stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        try {
+            if (this.count > 0) this.queue.put(new Chunk(this.buffer, this.count));
+            this.queue.put(new Chunk(END_OF_STREAM, 0));
+            this.consumer.join();
+        } catch (InterruptedException e) {
+            this.consumer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing pipelined stream.");
+        }
+        rethrowConsumerError();
+    }
+
+    private void handOver() throws IOException {
+        try {
+            this.queue.put(new Chunk(this.buffer, this.count));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing to pipelined stream.");
+        }
+        byte[] freeBuffer = this.freeBuffers.poll();
+        this.buffer = freeBuffer != null ? freeBuffer : new byte[this.chunkSize];
+        this.count = 0;
+        rethrowConsumerError();
+    }
+
+    private void consume() {
+        try (OutputStream outputStream = this.target) {
+            while (true) {
+                Chunk chunk = this.queue.take();
+                if (chunk.data() == END_OF_STREAM) break;
+                if (this.consumerError == null) {
+                    try {
+                        outputStream.write(chunk.data(), 0, chunk.length());
+                    } catch (Throwable e) {
+                        // keep draining, so that producer is not blocked on a full queue
+                        this.consumerError = e;
+                    }
+                }
+                this.freeBuffers.offer(chunk.data());
+            }
+        } catch (Throwable e) {
+            if (this.consumerError == null) this.consumerError = e;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) throw new IOException("Stream closed.");
+        rethrowConsumerError();
+    }
+
+    private void rethrowConsumerError() throws IOException {
+        Throwable e = this.consumerError;
+        if (e == null) return;
+        if (e instanceof IOException ioException) throw new IOException(ioException.getMessage(), ioException);
+        if (e instanceof RuntimeException runtimeException) throw runtimeException;
+        if (e instanceof Error error) throw error;
+        throw new IOException(e);
+    }
+
+}
@@ -0,0 +1,423 @@
+package de.arthurpicht.utils.io.compress;
+
+import de.arthurpicht.utils.io.nio2.FileUtils;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Creation and extraction of tar and gzip compressed tar (tar.gz) archives. Archives are written in POSIX
+ * ustar format with PAX extensions for long names and large files.
+ */
+public class Tar {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int PIPELINE_QUEUE_CAPACITY = 4;
+
+    private static final int DEFAULT_FILE_MODE = 0644;
+    private static final int DEFAULT_DIRECTORY_MODE = 0755;
+
+    /**
+     * Creates a tar file for specified source (directory or file). Modification times and POSIX permissions are
+     * preserved. Empty directories are preserved. Symbolic links are ignored. If includeRootDir is set to true,
+     * source directory is included into tar, otherwise all contained child files and directories will be created
+     * as root elements of the tar file.
+     *
+     * @param source directory or file to be archived
+     * @param destination tar file to be created, must not exist
+     * @param includeRootDir if source directory is included as root element of tar
+     * @throws IOException on error when reading source or writing destination
+     */
+    public static void tar(final Path source, final Path destination, final boolean includeRootDir) throws IOException {
+        assertSourceAndDestination(source, destination);
+
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(destination), BUFFER_SIZE)) {
+            writeTarEntries(source, outputStream, includeRootDir);
+        }
+    }
+
+    /**
+     * Writes a tar of specified source (directory or file) directly to specified outputStream. See
+     * {@link #tar(Path, Path, boolean)}. Specified outputStream is flushed but not closed.
+     *
+     * @param source directory or file to be archived
+     * @param outputStream stream to write tar data to
+     * @param includeRootDir if source directory is included as root element of tar
+     * @throws IOException on error when reading source or writing to outputStream
+     */
+    public static void tar(final Path source, final OutputStream outputStream, final boolean includeRootDir) throws IOException {
+        assertSource(source);
+
+        try (OutputStream bufferedOutputStream = new BufferedOutputStream(
+                new Zip.NonClosingOutputStream(outputStream), BUFFER_SIZE)) {
+            writeTarEntries(source, bufferedOutputStream, includeRootDir);
+        }
+    }
+
+    /**
+     * Creates a gzip compressed tar file for specified source (directory or file). See
+     * {@link #tar(Path, Path, boolean)}. Compression is performed on a separate thread, so that reading source
+     * files and compressing run in parallel.
+     *
+     * @param source directory or file to be archived
+     * @param destination tar.gz file to be created, must not exist
+     * @param includeRootDir if source directory is included as root element of tar
+     * @throws IOException on error when reading source or writing destination
+     */
+    public static void tarGz(final Path source, final Path destination, final boolean includeRootDir) throws IOException {
+        tarGz(source, destination, includeRootDir, true);
+    }
+
+    /**
+     * Creates a gzip compressed tar file for specified source (directory or file). See
+     * {@link #tar(Path, Path, boolean)}.
+     *
+     * @param source directory or file to be archived
+     * @param destination tar.gz file to be created, must not exist
+     * @param includeRootDir if source directory is included as root element of tar
+     * @param pipelined if compression is performed on a separate thread
+     * @throws IOException on error when reading source or writing destination
+     */
+    public static void tarGz(
+            final Path source,
+            final Path destination,
+            final boolean includeRootDir,
+            final boolean pipelined) throws IOException {
+
+        assertSourceAndDestination(source, destination);
+
+        try (OutputStream fileOutputStream = new BufferedOutputStream(Files.newOutputStream(destination), BUFFER_SIZE);
+             OutputStream outputStream = gzipStream(fileOutputStream, pipelined)) {
+            writeTarEntries(source, outputStream, includeRootDir);
+        }
+    }
+
+    /**
+     * Writes a gzip compressed tar of specified source (directory or file) directly to specified outputStream.
+     * See {@link #tarGz(Path, Path, boolean)}. Specified outputStream is flushed but not closed.
+     *
+     * @param source directory or file to be archived
+     * @param outputStream stream to write tar.gz data to
+     * @param includeRootDir if source directory is included as root element of tar
+     * @throws IOException on error when reading source or writing to outputStream
+     */
+    public static void tarGz(final Path source, final OutputStream outputStream, final boolean includeRootDir) throws IOException {
+        assertSource(source);
+
+        try (OutputStream gzipOutputStream = gzipStream(new Zip.NonClosingOutputStream(outputStream), true)) {
+            writeTarEntries(source, gzipOutputStream, includeRootDir);
+        }
+    }
+
+    /**
+     * Returns the names of all entries of specified tar file. Gzip compressed tar files are detected
+     * automatically.
+     *
+     * @param tarFile tar or tar.gz file
+     * @return entry names in archive order
+     * @throws IOException on error when reading tar file
+     */
+    public static List<String> getTarEntryNames(final Path tarFile) throws IOException {
+        if (!FileUtils.isExistingRegularFile(tarFile))
+            throw new IllegalArgumentException("Specified tar file not existing: [" + tarFile.toAbsolutePath() + "].");
+
+        List<String> entryNames = new ArrayList<>();
+        try (InputStream inputStream = openTarInputStream(tarFile)) {
+            readTarEntries(inputStream, (header, entryInputStream) -> entryNames.add(header.getName()));
+        }
+        return entryNames;
+    }
+
+    /**
+     * Extracts specified tar file to destination directory. Gzip compressed tar files are detected automatically.
+     * Modification times and POSIX permissions of files are restored.
+     *
+     * @param tarFile tar or tar.gz file
+     * @param destinationDir destination directory
+     * @throws IOException on error when reading tar file or writing files
+     */
+    public static void untar(final Path tarFile, final Path destinationDir) throws IOException {
+        if (!FileUtils.isExistingRegularFile(tarFile))
+            throw new IllegalArgumentException("Specified tar file not existing: [" + tarFile.toAbsolutePath() + "].");
+
+        try (InputStream inputStream = openTarInputStream(tarFile)) {
+            extractTarEntries(inputStream, destinationDir);
+        }
+    }
+
+    /**
+     * Extracts tar data read from specified inputStream to destination directory. Gzip compressed data is
+     * detected automatically. Specified inputStream is not closed.
+     *
+     * @param inputStream tar or tar.gz data
+     * @param destinationDir destination directory
+     * @throws IOException on error when reading tar data or writing files
+     */
+    public static void untar(final InputStream inputStream, final Path destinationDir) throws IOException {
+        extractTarEntries(decompressIfGzip(inputStream), destinationDir);
+    }
+
+    private static void extractTarEntries(final InputStream inputStream, final Path destinationDir) throws IOException {
+        Map<Path, Long> directoryModificationTimes = new LinkedHashMap<>();
+        boolean posix = Files.getFileAttributeView(
+                FileUtils.toCanonicalPath(destinationDir).getRoot(), PosixFileAttributeView.class) != null;
+
+        readTarEntries(inputStream, (header, entryInputStream) -> {
+            final Path destinationPath = destinationDir.resolve(header.getName());
+            if (header.isDirectory()
+                    && FileUtils.toCanonicalPath(destinationPath).equals(FileUtils.toCanonicalPath(destinationDir))) {
+                // entry of archive root like "./"
+                return;
+            }
+            if (!FileUtils.isChild(destinationDir, destinationPath)) {
+                // see https://snyk.io/research/zip-slip-vulnerability
+                throw new IOException("Found zip-slip-vulnerability for [" + destinationPath + "]");
+            }
+            if (header.isDirectory()) {
+                Files.createDirectories(destinationPath);
+                directoryModificationTimes.put(destinationPath, header.getModificationTime());
+            } else if (header.isFile()) {
+                Files.createDirectories(destinationPath.getParent());
+                Files.copy(entryInputStream, destinationPath);
+                Files.setLastModifiedTime(destinationPath, FileTime.from(header.getModificationTime(), TimeUnit.SECONDS));
+                if (posix && (header.getMode() & 0777) != 0)
+                    Files.setPosixFilePermissions(destinationPath, toPermissions(header.getMode()));
+            }
+        });
+
+        for (Map.Entry<Path, Long> entry : directoryModificationTimes.entrySet()) {
+            Files.setLastModifiedTime(entry.getKey(), FileTime.from(entry.getValue(), TimeUnit.SECONDS));
+        }
+    }
+
+    private static void assertSource(Path source) {
+        if (!Files.exists(source))
+            throw new IllegalArgumentException("Source path for tar creation not existing: " +
+                    "[" + source.toAbsolutePath() + "].");
+    }
+
+    private static void assertSourceAndDestination(Path source, Path destination) {
+        assertSource(source);
+        if (Files.exists(destination))
+            throw new IllegalArgumentException("Destination path for tar creation already existing: " +
+                    "[" + destination.toAbsolutePath() + "].");
+    }
+
+    private static OutputStream gzipStream(OutputStream outputStream, boolean pipelined) throws IOException {
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        return pipelined
+                ? new PipelinedOutputStream(gzipOutputStream, BUFFER_SIZE, PIPELINE_QUEUE_CAPACITY)
+                : new BufferedOutputStream(gzipOutputStream, BUFFER_SIZE);
+    }
+
+    private static void writeTarEntries(
+            final Path source,
+            final OutputStream outputStream,
+            final boolean includeRootDir) throws IOException {
+
+        Path reference = Zip.getReference(source, includeRootDir);
+        long[] bytesWritten = {0};
+
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (attributes.isSymbolicLink()) return FileVisitResult.CONTINUE;
+
+                TarHeader header = new TarHeader(
+                        Zip.toEntryName(reference.relativize(file)),
+                        getMode(file, DEFAULT_FILE_MODE),
+                        attributes.size(),
+                        attributes.lastModifiedTime().to(TimeUnit.SECONDS),
+                        TarHeader.TYPE_FILE);
+                byte[] headerBlocks = header.encode();
+                outputStream.write(headerBlocks);
+
+                long size;
+                try (InputStream inputStream = Files.newInputStream(file)) {
+                    size = inputStream.transferTo(outputStream);
+                }
+                if (size != attributes.size())
+                    throw new IOException("File size changed while archiving: [" + file.toAbsolutePath() + "].");
+                outputStream.write(new byte[TarHeader.padding(size)]);
+
+                bytesWritten[0] += headerBlocks.length + size + TarHeader.padding(size);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                if (attributes.isSymbolicLink()) return FileVisitResult.CONTINUE;
+
+                String entryName = Zip.toEntryName(reference.relativize(dir));
+                if (entryName.isEmpty()) return FileVisitResult.CONTINUE;
+
+                TarHeader header = new TarHeader(
+                        entryName + "/",
+                        getMode(dir, DEFAULT_DIRECTORY_MODE),
+                        0,
+                        attributes.lastModifiedTime().to(TimeUnit.SECONDS),
+                        TarHeader.TYPE_DIRECTORY);
+                byte[] headerBlocks = header.encode();
+                outputStream.write(headerBlocks);
+
+                bytesWritten[0] += headerBlocks.length;
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+
+        // end of archive: two zero blocks, padded to a full record
+        long archiveLength = bytesWritten[0] + 2 * TarHeader.BLOCK_SIZE;
+        long recordPadding = (TarHeader.RECORD_SIZE - archiveLength % TarHeader.RECORD_SIZE) % TarHeader.RECORD_SIZE;
+        outputStream.write(new byte[(int) (2 * TarHeader.BLOCK_SIZE + recordPadding)]);
+    }
+
+    private static int getMode(Path path, int defaultMode) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        if (view == null) return defaultMode;
+        int mode = 0;
+        for (PosixFilePermission permission : view.readAttributes().permissions()) {
+            mode |= 1 << (8 - permission.ordinal());
+        }
+        return mode;
+    }
+
+    private static Set<PosixFilePermission> toPermissions(int mode) {
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        for (PosixFilePermission permission : PosixFilePermission.values()) {
+            if ((mode & (1 << (8 - permission.ordinal()))) != 0) permissions.add(permission);
+        }
+        return permissions;
+    }
+
+    private static InputStream openTarInputStream(Path tarFile) throws IOException {
+        return decompressIfGzip(new BufferedInputStream(Files.newInputStream(tarFile), BUFFER_SIZE));
+    }
+
+    private static InputStream decompressIfGzip(InputStream inputStream) throws IOException {
+        InputStream bufferedInputStream = inputStream.markSupported()
+                ? inputStream
+                : new BufferedInputStream(inputStream, BUFFER_SIZE);
+        bufferedInputStream.mark(2);
+        int b1 = bufferedInputStream.read();
+        int b2 = bufferedInputStream.read();
+        bufferedInputStream.reset();
+        if (b1 == 0x1f && b2 == 0x8b) return new GZIPInputStream(bufferedInputStream, BUFFER_SIZE);
+        return bufferedInputStream;
+    }
+
+    @FunctionalInterface
+    private interface TarEntryConsumer {
+        void accept(TarHeader header, InputStream entryInputStream) throws IOException;
+    }
+
+    private static void readTarEntries(InputStream inputStream, TarEntryConsumer consumer) throws IOException {
+        byte[] block = new byte[TarHeader.BLOCK_SIZE];
+        Map<String, String> paxRecords = null;
+        String longName = null;
+
+        while (true) {
+            int read = inputStream.readNBytes(block, 0, TarHeader.BLOCK_SIZE);
+            if (read == 0) break;
+            if (read < TarHeader.BLOCK_SIZE) throw new EOFException("Unexpected end of tar data.");
+
+            TarHeader header = TarHeader.decode(block);
+            if (header == null) break;
+
+            if (header.getType() == TarHeader.TYPE_PAX_EXTENDED) {
+                paxRecords = TarHeader.parsePaxRecords(readEntryData(inputStream, header.getSize()));
+                continue;
+            }
+            if (header.getType() == TarHeader.TYPE_PAX_GLOBAL) {
+                readEntryData(inputStream, header.getSize());
+                continue;
+            }
+            if (header.getType() == TarHeader.TYPE_GNU_LONG_NAME) {
+                longName = TarHeader.parseGnuLongName(readEntryData(inputStream, header.getSize()));
+                continue;
+            }
+
+            if (longName != null) header.setName(longName);
+            if (paxRecords != null) header.applyPaxRecords(paxRecords);
+            longName = null;
+            paxRecords = null;
+
+            long size = header.getSize();
+            EntryInputStream entryInputStream = new EntryInputStream(inputStream, size);
+            consumer.accept(header, entryInputStream);
+            inputStream.skipNBytes(entryInputStream.remaining + TarHeader.padding(size));
+        }
+    }
+
+    private static byte[] readEntryData(InputStream inputStream, long size) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) throw new IOException("Tar extended header too large: " + size + " bytes.");
+        byte[] data = inputStream.readNBytes((int) size);
+        if (data.length < size) throw new EOFException("Unexpected end of tar data.");
+        inputStream.skipNBytes(TarHeader.padding(size));
+        return data;
+    }
+
+    /**
+     * Provides the data of a single tar entry. Not closing the underlying stream.
+     */
+    private static class EntryInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        EntryInputStream(InputStream inputStream, long size) {
+            super(inputStream);
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0) return -1;
+            int b = in.read();
+            if (b < 0) throw new EOFException("Unexpected end of tar data.");
+            this.remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (this.remaining <= 0) return -1;
+            int n = in.read(b, off, (int) Math.min(len, this.remaining));
+            if (n < 0) throw new EOFException("Unexpected end of tar data.");
+            this.remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, this.remaining));
+            this.remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), this.remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -0,0 +1,284 @@
+package de.arthurpicht.utils.io.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encoding and decoding of tar headers in POSIX ustar format. Names exceeding the ustar field length and sizes
+ * exceeding the octal size field are written as PAX extended headers. On reading, PAX extended headers and
+ * GNU long name headers are supported.
+ */
+class TarHeader {
+
+    static final int BLOCK_SIZE = 512;
+    static final int RECORD_SIZE = 20 * BLOCK_SIZE;
+
+    static final byte TYPE_FILE = '0';
+    static final byte TYPE_FILE_OLD = 0;
+    static final byte TYPE_CONTIGUOUS_FILE = '7';
+    static final byte TYPE_DIRECTORY = '5';
+    static final byte TYPE_PAX_EXTENDED = 'x';
+    static final byte TYPE_PAX_GLOBAL = 'g';
+    static final byte TYPE_GNU_LONG_NAME = 'L';
+
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_OCTAL_SIZE = 077777777777L;
+    private static final byte[] USTAR_MAGIC = "ustar\u000000".getBytes(StandardCharsets.US_ASCII);
+
+    private String name;
+    private int mode;
+    private long size;
+    private long modificationTime;
+    private byte type;
+
+    TarHeader(String name, int mode, long size, long modificationTime, byte type) {
+        this.name = name;
+        this.mode = mode;
+        this.size = size;
+        this.modificationTime = modificationTime;
+        this.type = type;
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    int getMode() {
+        return this.mode;
+    }
+
+    long getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return modification time in seconds since epoch
+     */
+    long getModificationTime() {
+        return this.modificationTime;
+    }
+
+    byte getType() {
+        return this.type;
+    }
+
+    boolean isFile() {
+        return this.type == TYPE_FILE || this.type == TYPE_FILE_OLD || this.type == TYPE_CONTIGUOUS_FILE;
+    }
+
+    boolean isDirectory() {
+        return this.type == TYPE_DIRECTORY;
+    }
+
+    /**
+     * Encodes this header as one ustar header block, preceded by a PAX extended header if required.
+     *
+     * @return header blocks, length is a multiple of {@link #BLOCK_SIZE}
+     */
+    byte[] encode() {
+        byte[] nameBytes = this.name.getBytes(StandardCharsets.UTF_8);
+        boolean paxName = nameBytes.length > NAME_LENGTH || !isAscii(this.name);
+        boolean paxSize = this.size > MAX_OCTAL_SIZE;
+        if (!paxName && !paxSize) return encodeBlock(nameBytes, this.size, this.type);
+
+        ByteArrayOutputStream paxRecords = new ByteArrayOutputStream();
+        if (paxName) writePaxRecord(paxRecords, "path", this.name);
+        if (paxSize) writePaxRecord(paxRecords, "size", Long.toString(this.size));
+        byte[] paxData = paxRecords.toByteArray();
+
+        byte[] paxHeaderName = "././@PaxHeader".getBytes(StandardCharsets.US_ASCII);
+        byte[] paxHeader = encodeBlock(paxHeaderName, paxData.length, TYPE_PAX_EXTENDED);
+        byte[] ustarName = truncateToAscii(this.name);
+        byte[] ustarHeader = encodeBlock(ustarName, paxSize ? 0 : this.size, this.type);
+
+        byte[] result = new byte[BLOCK_SIZE + paddedLength(paxData.length) + BLOCK_SIZE];
+        System.arraycopy(paxHeader, 0, result, 0, BLOCK_SIZE);
+        System.arraycopy(paxData, 0, result, BLOCK_SIZE, paxData.length);
+        System.arraycopy(ustarHeader, 0, result, result.length - BLOCK_SIZE, BLOCK_SIZE);
+        return result;
+    }
+
+    private byte[] encodeBlock(byte[] nameBytes, long size, byte type) {
+        byte[] block = new byte[BLOCK_SIZE];
+        System.arraycopy(nameBytes, 0, block, 0, Math.min(nameBytes.length, NAME_LENGTH));
+        writeOctal(block, 100, 8, this.mode);
+        writeOctal(block, 108, 8, 0);
+        writeOctal(block, 116, 8, 0);
+        writeOctal(block, 124, 12, size);
+        writeOctal(block, 136, 12, Math.max(0, this.modificationTime));
+        block[156] = type;
+        System.arraycopy(USTAR_MAGIC, 0, block, 257, USTAR_MAGIC.length);
+
+        for (int i = 148; i < 156; i++) block[i] = ' ';
+        long checksum = 0;
+        for (byte b : block) checksum += b & 0xFF;
+        writeOctal(block, 148, 7, checksum);
+        return block;
+    }
+
+    /**
+     * Decodes a ustar or GNU header block.
+     *
+     * @param block header block of {@link #BLOCK_SIZE} bytes
+     * @return header or null if block is an end of archive block (all zero)
+     * @throws IOException if checksum does not match
+     */
+    static TarHeader decode(byte[] block) throws IOException {
+        boolean allZero = true;
+        for (byte b : block) {
+            if (b != 0) {
+                allZero = false;
+                break;
+            }
+        }
+        if (allZero) return null;
+
+        long storedChecksum = parseNumber(block, 148, 8);
+        long checksum = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            checksum += (i >= 148 && i < 156) ? ' ' : (block[i] & 0xFF);
+        }
+        if (checksum != storedChecksum) throw new IOException("Invalid tar header checksum.");
+
+        String name = parseString(block, 0, NAME_LENGTH);
+        boolean ustar = block[257] == 'u' && block[258] == 's' && block[259] == 't'
+                && block[260] == 'a' && block[261] == 'r';
+        if (ustar && block[345] != 0) {
+            name = parseString(block, 345, 155) + "/" + name;
+        }
+
+        return new TarHeader(
+                name,
+                (int) parseNumber(block, 100, 8),
+                parseNumber(block, 124, 12),
+                parseNumber(block, 136, 12),
+                block[156]);
+    }
+
+    /**
+     * Applies values of PAX extended header records to this header.
+     */
+    void applyPaxRecords(Map<String, String> paxRecords) throws IOException {
+        try {
+            if (paxRecords.containsKey("path")) this.name = paxRecords.get("path");
+            if (paxRecords.containsKey("size")) this.size = Long.parseLong(paxRecords.get("size"));
+            if (paxRecords.containsKey("mtime")) {
+                String mtime = paxRecords.get("mtime");
+                int dot = mtime.indexOf('.');
+                this.modificationTime = Long.parseLong(dot < 0 ? mtime : mtime.substring(0, dot));
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid PAX extended header: " + e.getMessage(), e);
+        }
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Parses PAX extended header records of format "length key=value\n".
+     */
+    static Map<String, String> parsePaxRecords(byte[] data) throws IOException {
+        Map<String, String> records = new HashMap<>();
+        int position = 0;
+        while (position < data.length && data[position] != 0) {
+            int space = position;
+            while (space < data.length && data[space] != ' ') space++;
+            if (space == data.length || space == position) throw new IOException("Invalid PAX record.");
+            long length;
+            try {
+                length = Long.parseLong(new String(data, position, space - position, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid PAX record.", e);
+            }
+            // record is "<length> <key>=<value>\n", length includes the length field itself
+            if (length < space - position + 2 || length > data.length - position
+                    || data[(int) (position + length - 1)] != '\n')
+                throw new IOException("Invalid PAX record.");
+            String record = new String(data, space + 1, (int) (position + length - space - 2), StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) records.put(record.substring(0, equals), record.substring(equals + 1));
+            position += (int) length;
+        }
+        return records;
+    }
+
+    static String parseGnuLongName(byte[] data) {
+        int length = 0;
+        while (length < data.length && data[length] != 0) length++;
+        return new String(data, 0, length, StandardCharsets.UTF_8);
+    }
+
+    static int paddedLength(long length) {
+        return (int) ((BLOCK_SIZE - (length % BLOCK_SIZE)) % BLOCK_SIZE + length);
+    }
+
+    static int padding(long length) {
+        return (int) ((BLOCK_SIZE - (length % BLOCK_SIZE)) % BLOCK_SIZE);
+    }
+
+    private static void writePaxRecord(ByteArrayOutputStream outputStream, String key, String value) {
+        byte[] keyValue = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+        int length = keyValue.length;
+        int digits = Integer.toString(length).length();
+        while (Integer.toString(length + digits).length() != digits) digits++;
+        byte[] lengthBytes = Integer.toString(length + digits).getBytes(StandardCharsets.US_ASCII);
+        outputStream.write(lengthBytes, 0, lengthBytes.length);
+        outputStream.write(keyValue, 0, keyValue.length);
+    }
+
+    private static void writeOctal(byte[] block, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        for (int i = 0; i < digits; i++) {
+            int octalIndex = octal.length() - digits + i;
+            block[offset + i] = (byte) (octalIndex < 0 ? '0' : octal.charAt(octalIndex));
+        }
+        block[offset + digits] = 0;
+    }
+
+    private static long parseNumber(byte[] block, int offset, int length) throws IOException {
+        if ((block[offset] & 0x80) != 0) {
+            // GNU base-256 encoding
+            long value = block[offset] & 0x7F;
+            for (int i = 1; i < length; i++) value = (value << 8) | (block[offset + i] & 0xFF);
+            return value;
+        }
+        long value = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end && (block[i] == ' ' || block[i] == 0)) i++;
+        for (; i < end && block[i] != ' ' && block[i] != 0; i++) {
+            if (block[i] < '0' || block[i] > '7') throw new IOException("Invalid octal number in tar header.");
+            value = (value << 3) + (block[i] - '0');
+        }
+        return value;
+    }
+
+    private static String parseString(byte[] block, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && block[end] != 0) end++;
+        return new String(block, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isAscii(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    private static byte[] truncateToAscii(String string) {
+        byte[] bytes = new byte[Math.min(string.length(), NAME_LENGTH)];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = string.charAt(i);
+            bytes[i] = (byte) (c < 0x80 ? c : '_');
+        }
+        return bytes;
+    }
+
+}
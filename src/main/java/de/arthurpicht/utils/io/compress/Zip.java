@@ -2,23 +2,28 @@ package de.arthurpicht.utils.io.compress;
 
 import de.arthurpicht.utils.io.nio2.FileUtils;
 
-import java.io.IOException;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.*;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.*;
 
 public class Zip {
 
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Timestamp of all entries created by reproducible zip operations. Corresponds to the lower bound of the
+     * MS-DOS date format, so no extended timestamp fields are written.
+     */
+    public static final LocalDateTime REPRODUCIBLE_TIMESTAMP = LocalDateTime.of(1980, 1, 1, 0, 0, 0);
+
+    private static final int REPRODUCIBLE_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
     /**
      * Creates a zip file for specified source (directory or file). All timestamps are preserved. Empty directories
      * are preserved. Symbolic links are ignored. If includeRootDir is set to true, source directory is included
@@ -40,48 +45,204 @@ public class Zip {
             throw new IllegalArgumentException("Destination path for zip creation already existing: " +
                     "[" + destination.toAbsolutePath() + "].");
 
-        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(destination))) {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(destination), BUFFER_SIZE))) {
+            writeZipEntries(source, zipOutputStream, includeRootDir);
+        }
+    }
 
-            Files.walkFileTree(source, new SimpleFileVisitor<>() {
+    /**
+     * Writes a zip of specified source (directory or file) directly to specified outputStream, without creating
+     * any intermediate file. Entries are the same as created by {@link #zip(Path, Path, boolean)}. Output is
+     * buffered by a fixed size buffer, so that data is passed to outputStream continuously while zipping.
+     * Specified outputStream is flushed but not closed.
+     *
+     * @param source directory or file to be zipped
+     * @param outputStream stream to write zip data to
+     * @param includeRootDir if source directory is included as root element of zip
+     * @throws IOException on error when reading source or writing to outputStream
+     */
+    public static void zip(final Path source, final OutputStream outputStream, final boolean includeRootDir) throws IOException {
 
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+        if (!Files.exists(source))
+            throw new IllegalArgumentException("Source path for zip creation not existing: " +
+                    "[" + source.toAbsolutePath() + "].");
 
-                    if (attributes.isSymbolicLink()) {
-                        return FileVisitResult.CONTINUE;
-                    }
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+                new BufferedOutputStream(new NonClosingOutputStream(outputStream), BUFFER_SIZE))) {
+            writeZipEntries(source, zipOutputStream, includeRootDir);
+        }
+    }
+
+    /**
+     * Writes a zip of specified source (directory or file) directly to specified channel. See
+     * {@link #zip(Path, OutputStream, boolean)}. Specified channel is not closed.
+     *
+     * @param source directory or file to be zipped
+     * @param channel channel to write zip data to
+     * @param includeRootDir if source directory is included as root element of zip
+     * @throws IOException on error when reading source or writing to channel
+     */
+    public static void zip(final Path source, final WritableByteChannel channel, final boolean includeRootDir) throws IOException {
+        zip(source, Channels.newOutputStream(channel), includeRootDir);
+    }
+
+    /**
+     * Creates a reproducible zip file for specified source (directory or file). Identical source trees result in
+     * byte-identical zip files: entries are sorted by name, all timestamps are set to a fixed value
+     * ({@link #REPRODUCIBLE_TIMESTAMP}), no permissions or extra fields are written and compression level is fixed.
+     * Empty directories are preserved. Symbolic links are ignored. For includeRootDir see
+     * {@link #zip(Path, Path, boolean)}.
+     *
+     * @param source directory or file to be zipped
+     * @param destination zip file to be created, must not exist
+     * @param includeRootDir if source directory is included as root element of zip
+     * @throws IOException on error when reading source or writing destination
+     */
+    public static void zipReproducible(final Path source, final Path destination, final boolean includeRootDir) throws IOException {
+
+        if (!Files.exists(source))
+            throw new IllegalArgumentException("Source path for zip creation not existing: " +
+                    "[" + source.toAbsolutePath() + "].");
+
+        if (Files.exists(destination))
+            throw new IllegalArgumentException("Destination path for zip creation already existing: " +
+                    "[" + destination.toAbsolutePath() + "].");
+
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(destination), BUFFER_SIZE))) {
+            writeReproducibleZipEntries(source, zipOutputStream, includeRootDir);
+        }
+    }
+
+    /**
+     * Writes a reproducible zip of specified source (directory or file) directly to specified outputStream.
+     * See {@link #zipReproducible(Path, Path, boolean)} and {@link #zip(Path, OutputStream, boolean)}.
+     * Specified outputStream is flushed but not closed.
+     *
+     * @param source directory or file to be zipped
+     * @param outputStream stream to write zip data to
+     * @param includeRootDir if source directory is included as root element of zip
+     * @throws IOException on error when reading source or writing to outputStream
+     */
+    public static void zipReproducible(final Path source, final OutputStream outputStream, final boolean includeRootDir) throws IOException {
+
+        if (!Files.exists(source))
+            throw new IllegalArgumentException("Source path for zip creation not existing: " +
+                    "[" + source.toAbsolutePath() + "].");
+
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+                new BufferedOutputStream(new NonClosingOutputStream(outputStream), BUFFER_SIZE))) {
+            writeReproducibleZipEntries(source, zipOutputStream, includeRootDir);
+        }
+    }
+
+    private static void writeZipEntries(
+            final Path source,
+            final ZipOutputStream zipOutputStream,
+            final boolean includeRootDir) throws IOException {
+
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
 
-                    Path reference = getReference(source, includeRootDir);
-                    ZipEntry zipEntry = new ZipEntry(reference.relativize(file).toString());
-                    preserveTimestamps(zipEntry, attributes);
-                    zipOutputStream.putNextEntry(zipEntry);
-                    Files.copy(file, zipOutputStream);
-                    zipOutputStream.closeEntry();
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
 
+                if (attributes.isSymbolicLink()) {
                     return FileVisitResult.CONTINUE;
                 }
 
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                Path reference = getReference(source, includeRootDir);
+                ZipEntry zipEntry = new ZipEntry(reference.relativize(file).toString());
+                preserveTimestamps(zipEntry, attributes);
+                zipOutputStream.putNextEntry(zipEntry);
+                Files.copy(file, zipOutputStream);
+                zipOutputStream.closeEntry();
 
-                    if (attributes.isSymbolicLink()) {
-                        return FileVisitResult.CONTINUE;
-                    }
+                return FileVisitResult.CONTINUE;
+            }
 
-                    Path reference = getReference(source, includeRootDir);
-                    ZipEntry zipEntry = new ZipEntry(reference.relativize(dir) + "/");
-                    preserveTimestamps(zipEntry, attributes);
-                    zipOutputStream.putNextEntry(zipEntry);
-                    zipOutputStream.closeEntry();
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
 
+                if (attributes.isSymbolicLink()) {
                     return FileVisitResult.CONTINUE;
                 }
 
-            });
+                Path reference = getReference(source, includeRootDir);
+                ZipEntry zipEntry = new ZipEntry(reference.relativize(dir) + "/");
+                preserveTimestamps(zipEntry, attributes);
+                zipOutputStream.putNextEntry(zipEntry);
+                zipOutputStream.closeEntry();
+
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+    }
+
+    private static void writeReproducibleZipEntries(
+            final Path source,
+            final ZipOutputStream zipOutputStream,
+            final boolean includeRootDir) throws IOException {
+
+        Path reference = getReference(source, includeRootDir);
+        SortedMap<String, Path> entries = new TreeMap<>();
+
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (!attributes.isSymbolicLink())
+                    entries.put(toEntryName(reference.relativize(file)), file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                if (!attributes.isSymbolicLink())
+                    entries.put(toEntryName(reference.relativize(dir)) + "/", dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+
+        zipOutputStream.setMethod(ZipOutputStream.DEFLATED);
+        zipOutputStream.setLevel(REPRODUCIBLE_COMPRESSION_LEVEL);
+
+        for (Map.Entry<String, Path> entry : entries.entrySet()) {
+            ZipEntry zipEntry = new ZipEntry(entry.getKey());
+            zipEntry.setTimeLocal(REPRODUCIBLE_TIMESTAMP);
+            zipOutputStream.putNextEntry(zipEntry);
+            if (!zipEntry.isDirectory()) Files.copy(entry.getValue(), zipOutputStream);
+            zipOutputStream.closeEntry();
         }
     }
 
-    private static Path getReference(Path source, boolean includeRootDir) {
+    static String toEntryName(Path relativePath) {
+        StringJoiner stringJoiner = new StringJoiner("/");
+        for (Path element : relativePath) {
+            stringJoiner.add(element.toString());
+        }
+        return stringJoiner.toString();
+    }
+
+    /**
+     * Adds all files and directories of specified source (directory or file) to specified existing zip file.
+     * Existing entries of same name are replaced. Unchanged entries are copied without recompression.
+     * See {@link ZipUpdate} for more options.
+     *
+     * @param zipFile existing zip file
+     * @param source directory or file to be added
+     * @param includeRootDir if source directory is included as root element of zip
+     * @throws IOException on error when reading source or updating zip file
+     */
+    public static void update(final Path zipFile, final Path source, final boolean includeRootDir) throws IOException {
+        new ZipUpdate(zipFile)
+                .withSource(source, includeRootDir)
+                .apply();
+    }
+
+    static Path getReference(Path source, boolean includeRootDir) {
         if (Files.isDirectory(source)) {
             return includeRootDir ? source.getParent() : source;
         } else if (Files.isRegularFile(source)) {
@@ -90,7 +251,7 @@ public class Zip {
         throw new RuntimeException("Illegal file type for source of zip creation: [" + source.toAbsolutePath() + "].");
     }
 
-    private static void preserveTimestamps(ZipEntry zipEntry, BasicFileAttributes attributes) {
+    static void preserveTimestamps(ZipEntry zipEntry, BasicFileAttributes attributes) {
         zipEntry.setCreationTime(attributes.creationTime());
         zipEntry.setLastModifiedTime(attributes.lastModifiedTime());
         zipEntry.setLastAccessTime(attributes.lastAccessTime());
@@ -112,6 +273,25 @@ public class Zip {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Opens specified zip file as a {@link FileSystem}, so that its content can be accessed like a directory tree
+     * without extracting it. Paths of the returned file system can be passed to {@link Files}, {@link FileUtils}
+     * and {@link de.arthurpicht.utils.io.file.TextFileUtils}. The root directory is obtained by
+     * {@code fileSystem.getPath("/")}. The returned file system must be closed by the caller.<br>
+     * The file system is requested as read-only. As the zip file system provider honors this request as of
+     * JDK 24 only, callers are expected not to modify it on earlier JDK versions.
+     *
+     * @param zipFile existing zip file
+     * @return file system with zip content
+     * @throws IOException on error when opening zip file
+     */
+    public static FileSystem openFileSystem(final Path zipFile) throws IOException {
+        if (!Files.exists(zipFile) || !Files.isRegularFile(zipFile))
+            throw new IllegalArgumentException("Specified zip file not existing: [" + zipFile.toAbsolutePath() + "].");
+
+        return FileSystems.newFileSystem(zipFile, Map.of("accessMode", "readOnly"));
+    }
+
     /**
      * Unzips specified zipFile to destination directory.
      *
@@ -120,7 +300,25 @@ public class Zip {
      * @throws IOException
      */
     public static void unzip(final Path zipFile, final Path destinationDir) throws IOException {
-        try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(zipFile))) {
+        unzip(zipFile, destinationDir, false);
+    }
+
+    /**
+     * Unzips specified zipFile to destination directory. If verify is set to true, CRC and size of each extracted
+     * file are checked against the central directory of the zip file. On mismatch, the corrupt file is deleted and
+     * a {@link ZipException} is thrown. Entries not listed in the central directory are rejected as well.
+     *
+     * @param zipFile zip file
+     * @param destinationDir destination directory
+     * @param verify if extracted files are checked against the central directory
+     * @throws IOException on error when reading zip file or writing files
+     * @throws ZipException if verification fails
+     */
+    public static void unzip(final Path zipFile, final Path destinationDir, final boolean verify) throws IOException {
+        ZipIndex zipIndex = verify ? ZipIndex.read(zipFile) : null;
+
+        try (ZipInputStream zipInputStream = new ZipInputStream(
+                new BufferedInputStream(Files.newInputStream(zipFile), BUFFER_SIZE))) {
             ZipEntry zipEntry;
             while ((zipEntry = zipInputStream.getNextEntry()) != null) {
                 final Path destinationPath = destinationDir.resolve(zipEntry.getName());
@@ -130,12 +328,96 @@ public class Zip {
                 }
                 if (zipEntry.isDirectory()) {
                     Files.createDirectories(destinationPath);
-                } else {
+                } else if (zipIndex == null) {
                     Files.createDirectories(destinationPath.getParent());
                     Files.copy(zipInputStream, destinationPath);
+                } else {
+                    String entryName = zipEntry.getName();
+                    ZipEntry centralEntry = zipIndex.getEntry(entryName).orElseThrow(() ->
+                            new ZipException("Entry not found in central directory: [" + entryName + "]."));
+                    Files.createDirectories(destinationPath.getParent());
+                    try {
+                        CRC32 crc32 = new CRC32();
+                        long size = Files.copy(new CheckedInputStream(zipInputStream, crc32), destinationPath);
+                        assertCrcAndSize(centralEntry, crc32.getValue(), size);
+                    } catch (IOException e) {
+                        Files.deleteIfExists(destinationPath);
+                        throw e;
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Verifies integrity of specified zip file without writing to disk. All entries are inflated in parallel
+     * and checked against CRC and size as stored in the central directory.
+     *
+     * @param zipFile zip file to be verified
+     * @throws ZipException if zip file is corrupt
+     * @throws IOException on error when reading zip file
+     */
+    public static void verify(final Path zipFile) throws IOException {
+        if (!Files.exists(zipFile) || !Files.isRegularFile(zipFile))
+            throw new IllegalArgumentException("Specified zip file not existing: [" + zipFile.toAbsolutePath() + "].");
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            List<? extends ZipEntry> zipEntries = Collections.list(zip.entries());
+            zipEntries.parallelStream()
+                    .filter(zipEntry -> !zipEntry.isDirectory())
+                    .forEach(zipEntry -> verifyEntry(zip, zipEntry));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void verifyEntry(ZipFile zipFile, ZipEntry zipEntry) {
+        CRC32 crc32 = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                crc32.update(buffer, 0, bytesRead);
+                size += bytesRead;
+            }
+            assertCrcAndSize(zipEntry, crc32.getValue(), size);
+        } catch (ZipException e) {
+            throw new UncheckedIOException(e);
+        } catch (IOException e) {
+            ZipException zipException = new ZipException("Corrupt entry [" + zipEntry.getName() + "]: " + e.getMessage());
+            zipException.initCause(e);
+            throw new UncheckedIOException(zipException);
+        }
+    }
+
+    private static void assertCrcAndSize(ZipEntry zipEntry, long crc, long size) throws ZipException {
+        if (zipEntry.getSize() != -1 && zipEntry.getSize() != size)
+            throw new ZipException("Invalid size of entry [" + zipEntry.getName() + "]: " +
+                    "expected " + zipEntry.getSize() + " but was " + size + ".");
+        if (zipEntry.getCrc() != -1 && zipEntry.getCrc() != crc)
+            throw new ZipException("Invalid CRC of entry [" + zipEntry.getName() + "]: " +
+                    "expected " + Long.toHexString(zipEntry.getCrc()) + " but was " + Long.toHexString(crc) + ".");
+    }
+
+    /**
+     * Shields a caller owned stream from being closed when the wrapping zip stream is closed.
+     */
+    static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
 }
@@ -0,0 +1,359 @@
+package de.arthurpicht.utils.io.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipException;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Minimal reader and writer of the zip central directory as specified by PKWARE APPNOTE, including ZIP64
+ * extensions. Used for operations on raw zip entry data that are not covered by java.util.zip, like copying
+ * compressed entries from one zip file to another without inflating them.
+ */
+class ZipCentralDirectory {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int EOCD_LENGTH = 22;
+    private static final int ZIP64_EOCD_LENGTH = 56;
+    private static final int ZIP64_EOCD_LOCATOR_LENGTH = 20;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int ZIP64_VERSION = 45;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    /**
+     * A single central directory record. All fields besides the local header offset are copied unchanged
+     * when writing.
+     */
+    static class Record {
+
+        private int versionMadeBy;
+        private int versionNeeded;
+        private int flags;
+        private int method;
+        private int dosTime;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private byte[] name;
+        private byte[] extra;
+        private byte[] comment;
+        private int internalAttributes;
+        private long externalAttributes;
+        private long localHeaderOffset;
+
+        String getName() {
+            return new String(this.name, (this.flags & 0x800) != 0 ? UTF_8 : ISO_8859_1);
+        }
+
+        long getLocalHeaderOffset() {
+            return this.localHeaderOffset;
+        }
+
+        Record withLocalHeaderOffset(long localHeaderOffset) {
+            Record record = copy();
+            record.localHeaderOffset = localHeaderOffset;
+            return record;
+        }
+
+        private Record copy() {
+            Record record = new Record();
+            record.versionMadeBy = this.versionMadeBy;
+            record.versionNeeded = this.versionNeeded;
+            record.flags = this.flags;
+            record.method = this.method;
+            record.dosTime = this.dosTime;
+            record.crc = this.crc;
+            record.compressedSize = this.compressedSize;
+            record.size = this.size;
+            record.name = this.name;
+            record.extra = this.extra;
+            record.comment = this.comment;
+            record.internalAttributes = this.internalAttributes;
+            record.externalAttributes = this.externalAttributes;
+            record.localHeaderOffset = this.localHeaderOffset;
+            return record;
+        }
+
+        private int length() {
+            return CENTRAL_HEADER_LENGTH + this.name.length + this.extra.length + zip64ExtraLength() + this.comment.length;
+        }
+
+        private int zip64ExtraLength() {
+            int length = 0;
+            if (this.size >= ZIP64_MAGIC) length += 8;
+            if (this.compressedSize >= ZIP64_MAGIC) length += 8;
+            if (this.localHeaderOffset >= ZIP64_MAGIC) length += 8;
+            return length == 0 ? 0 : length + 4;
+        }
+
+        private void writeTo(ByteBuffer buffer) {
+            int zip64ExtraLength = zip64ExtraLength();
+            buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+            buffer.putShort((short) this.versionMadeBy);
+            buffer.putShort((short) (zip64ExtraLength > 0 ? Math.max(this.versionNeeded, ZIP64_VERSION) : this.versionNeeded));
+            buffer.putShort((short) this.flags);
+            buffer.putShort((short) this.method);
+            buffer.putInt(this.dosTime);
+            buffer.putInt((int) this.crc);
+            buffer.putInt((int) Math.min(this.compressedSize, ZIP64_MAGIC));
+            buffer.putInt((int) Math.min(this.size, ZIP64_MAGIC));
+            buffer.putShort((short) this.name.length);
+            buffer.putShort((short) (this.extra.length + zip64ExtraLength));
+            buffer.putShort((short) this.comment.length);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) this.internalAttributes);
+            buffer.putInt((int) this.externalAttributes);
+            buffer.putInt((int) Math.min(this.localHeaderOffset, ZIP64_MAGIC));
+            buffer.put(this.name);
+            if (zip64ExtraLength > 0) {
+                buffer.putShort((short) ZIP64_EXTRA_ID);
+                buffer.putShort((short) (zip64ExtraLength - 4));
+                if (this.size >= ZIP64_MAGIC) buffer.putLong(this.size);
+                if (this.compressedSize >= ZIP64_MAGIC) buffer.putLong(this.compressedSize);
+                if (this.localHeaderOffset >= ZIP64_MAGIC) buffer.putLong(this.localHeaderOffset);
+            }
+            buffer.put(this.extra);
+            buffer.put(this.comment);
+        }
+
+    }
+
+    private final List<Record> records;
+    private final long centralDirectoryOffset;
+    private final byte[] comment;
+
+    private ZipCentralDirectory(List<Record> records, long centralDirectoryOffset, byte[] comment) {
+        this.records = Collections.unmodifiableList(records);
+        this.centralDirectoryOffset = centralDirectoryOffset;
+        this.comment = comment;
+    }
+
+    /**
+     * @return all records in central directory order
+     */
+    List<Record> getRecords() {
+        return this.records;
+    }
+
+    /**
+     * @return offset of the first central directory record, which is the end of the last entry's data
+     */
+    long getCentralDirectoryOffset() {
+        return this.centralDirectoryOffset;
+    }
+
+    byte[] getComment() {
+        return this.comment;
+    }
+
+    /**
+     * Reads the central directory of the zip file opened by specified channel.
+     */
+    static ZipCentralDirectory read(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        int tailLength = (int) Math.min(fileSize, EOCD_LENGTH + MAX_COMMENT_LENGTH);
+        ByteBuffer tail = readFully(channel, fileSize - tailLength, tailLength);
+
+        int eocdPosition = -1;
+        for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocdPosition = i;
+                break;
+            }
+        }
+        if (eocdPosition < 0) throw new ZipException("End of central directory not found.");
+
+        long entryCount = Short.toUnsignedInt(tail.getShort(eocdPosition + 10));
+        long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(eocdPosition + 12));
+        long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(eocdPosition + 16));
+        int commentLength = Short.toUnsignedInt(tail.getShort(eocdPosition + 20));
+        byte[] comment = new byte[Math.min(commentLength, tailLength - eocdPosition - EOCD_LENGTH)];
+        tail.get(eocdPosition + EOCD_LENGTH, comment);
+
+        long eocdOffset = fileSize - tailLength + eocdPosition;
+        if ((entryCount == ZIP64_MAGIC_COUNT || centralDirectorySize == ZIP64_MAGIC || centralDirectoryOffset == ZIP64_MAGIC)
+                && eocdOffset >= ZIP64_EOCD_LOCATOR_LENGTH) {
+            ByteBuffer locator = readFully(channel, eocdOffset - ZIP64_EOCD_LOCATOR_LENGTH, ZIP64_EOCD_LOCATOR_LENGTH);
+            if (locator.getInt(0) == ZIP64_EOCD_LOCATOR_SIGNATURE) {
+                ByteBuffer zip64Eocd = readFully(channel, locator.getLong(8), ZIP64_EOCD_LENGTH);
+                if (zip64Eocd.getInt(0) != ZIP64_EOCD_SIGNATURE)
+                    throw new ZipException("Invalid ZIP64 end of central directory record.");
+                entryCount = zip64Eocd.getLong(32);
+                centralDirectorySize = zip64Eocd.getLong(40);
+                centralDirectoryOffset = zip64Eocd.getLong(48);
+            }
+        }
+
+        if (centralDirectorySize > Integer.MAX_VALUE - 8)
+            throw new ZipException("Central directory too large: " + centralDirectorySize + " bytes.");
+        ByteBuffer centralDirectory = readFully(channel, centralDirectoryOffset, (int) centralDirectorySize);
+
+        List<Record> records = new ArrayList<>((int) Math.min(entryCount, 1 << 16));
+        while (centralDirectory.remaining() >= CENTRAL_HEADER_LENGTH) {
+            if (centralDirectory.getInt(centralDirectory.position()) != CENTRAL_HEADER_SIGNATURE) break;
+            records.add(readRecord(centralDirectory));
+        }
+        if (records.size() != entryCount)
+            throw new ZipException("Central directory contains " + records.size() + " records, " +
+                    "but " + entryCount + " expected.");
+
+        return new ZipCentralDirectory(records, centralDirectoryOffset, comment);
+    }
+
+    private static Record readRecord(ByteBuffer buffer) throws ZipException {
+        Record record = new Record();
+        buffer.getInt();
+        record.versionMadeBy = Short.toUnsignedInt(buffer.getShort());
+        record.versionNeeded = Short.toUnsignedInt(buffer.getShort());
+        record.flags = Short.toUnsignedInt(buffer.getShort());
+        record.method = Short.toUnsignedInt(buffer.getShort());
+        record.dosTime = buffer.getInt();
+        record.crc = Integer.toUnsignedLong(buffer.getInt());
+        record.compressedSize = Integer.toUnsignedLong(buffer.getInt());
+        record.size = Integer.toUnsignedLong(buffer.getInt());
+        int nameLength = Short.toUnsignedInt(buffer.getShort());
+        int extraLength = Short.toUnsignedInt(buffer.getShort());
+        int commentLength = Short.toUnsignedInt(buffer.getShort());
+        int diskStart = Short.toUnsignedInt(buffer.getShort());
+        record.internalAttributes = Short.toUnsignedInt(buffer.getShort());
+        record.externalAttributes = Integer.toUnsignedLong(buffer.getInt());
+        record.localHeaderOffset = Integer.toUnsignedLong(buffer.getInt());
+        if (buffer.remaining() < nameLength + extraLength + commentLength)
+            throw new ZipException("Truncated central directory record.");
+        record.name = new byte[nameLength];
+        buffer.get(record.name);
+        byte[] extra = new byte[extraLength];
+        buffer.get(extra);
+        record.comment = new byte[commentLength];
+        buffer.get(record.comment);
+        record.extra = applyAndRemoveZip64Extra(record, extra, diskStart == ZIP64_MAGIC_COUNT);
+        return record;
+    }
+
+    /**
+     * Reads values from ZIP64 extended information extra field into specified record and returns the remaining
+     * extra fields. The ZIP64 field is recreated on writing as needed.
+     */
+    private static byte[] applyAndRemoveZip64Extra(Record record, byte[] extra, boolean hasDiskStart) {
+        ByteBuffer buffer = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer remaining = ByteBuffer.allocate(extra.length);
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int id = Short.toUnsignedInt(buffer.getShort());
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            if (id == ZIP64_EXTRA_ID) {
+                ByteBuffer field = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+                if (record.size == ZIP64_MAGIC && field.remaining() >= 8) record.size = field.getLong();
+                if (record.compressedSize == ZIP64_MAGIC && field.remaining() >= 8) record.compressedSize = field.getLong();
+                if (record.localHeaderOffset == ZIP64_MAGIC && field.remaining() >= 8) record.localHeaderOffset = field.getLong();
+                // disk start number is ignored, only single disk archives are supported
+                if (hasDiskStart && field.remaining() >= 4) field.getInt();
+            } else {
+                remaining.put(extra, start, length + 4);
+            }
+            buffer.position(buffer.position() + length);
+        }
+        remaining.put(extra, buffer.position(), buffer.remaining());
+        byte[] result = new byte[remaining.position()];
+        remaining.flip().get(result);
+        return result;
+    }
+
+    /**
+     * Writes a central directory of specified records followed by the end of central directory record(s) to
+     * specified channel. ZIP64 structures are written if required.
+     *
+     * @param channel destination
+     * @param records records to be written
+     * @param centralDirectoryOffset position in destination where the central directory starts
+     * @param comment zip file comment
+     */
+    static void write(WritableByteChannel channel, List<Record> records, long centralDirectoryOffset, byte[] comment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        long centralDirectorySize = 0;
+        for (Record record : records) {
+            int length = record.length();
+            if (buffer.remaining() < length) {
+                writeFully(channel, buffer);
+                if (buffer.capacity() < length) buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            record.writeTo(buffer);
+            centralDirectorySize += length;
+        }
+        writeFully(channel, buffer);
+
+        long entryCount = records.size();
+        boolean zip64 = entryCount >= ZIP64_MAGIC_COUNT
+                || centralDirectorySize >= ZIP64_MAGIC
+                || centralDirectoryOffset >= ZIP64_MAGIC;
+
+        buffer = ByteBuffer.allocate(ZIP64_EOCD_LENGTH + ZIP64_EOCD_LOCATOR_LENGTH + EOCD_LENGTH + comment.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (zip64) {
+            long zip64EocdOffset = centralDirectoryOffset + centralDirectorySize;
+            buffer.putInt(ZIP64_EOCD_SIGNATURE);
+            buffer.putLong(ZIP64_EOCD_LENGTH - 12);
+            buffer.putShort((short) ZIP64_VERSION);
+            buffer.putShort((short) ZIP64_VERSION);
+            buffer.putInt(0);
+            buffer.putInt(0);
+            buffer.putLong(entryCount);
+            buffer.putLong(entryCount);
+            buffer.putLong(centralDirectorySize);
+            buffer.putLong(centralDirectoryOffset);
+
+            buffer.putInt(ZIP64_EOCD_LOCATOR_SIGNATURE);
+            buffer.putInt(0);
+            buffer.putLong(zip64EocdOffset);
+            buffer.putInt(1);
+        }
+        buffer.putInt(EOCD_SIGNATURE);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) Math.min(entryCount, ZIP64_MAGIC_COUNT));
+        buffer.putShort((short) Math.min(entryCount, ZIP64_MAGIC_COUNT));
+        buffer.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+        buffer.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        buffer.putShort((short) comment.length);
+        buffer.put(comment);
+        writeFully(channel, buffer);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new ZipException("Unexpected end of zip file.");
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,102 @@
+package de.arthurpicht.utils.io.compress;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Immutable in-memory copy of the central directory of a zip file. Entries are kept in zip order and are
+ * looked up by name in constant time. No file handle is held after creation.
+ */
+public final class ZipIndex {
+
+    private final Path zipPath;
+    private final Map<String, ZipEntry> entries;
+
+    private ZipIndex(Path zipPath, Map<String, ZipEntry> entries) {
+        this.zipPath = zipPath;
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Reads the central directory of specified zip file.
+     *
+     * @param zipPath zip file
+     * @return index of all entries
+     * @throws IOException on error when reading zip file
+     * @throws IllegalArgumentException if specified zip file does not exist
+     */
+    public static ZipIndex read(Path zipPath) throws IOException {
+        assertArgumentNotNull("zipPath", zipPath);
+        if (!Files.exists(zipPath) || !Files.isRegularFile(zipPath))
+            throw new IllegalArgumentException("Specified zip file not existing: [" + zipPath.toAbsolutePath() + "].");
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            Map<String, ZipEntry> entries = new LinkedHashMap<>(Math.max(16, zipFile.size() * 4 / 3 + 1));
+            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry zipEntry = enumeration.nextElement();
+                entries.putIfAbsent(zipEntry.getName(), zipEntry);
+            }
+            return new ZipIndex(zipPath, entries);
+        }
+    }
+
+    public Path getZipPath() {
+        return this.zipPath;
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return unmodifiable set of all entry names in zip order
+     */
+    public Set<String> getEntryNames() {
+        return this.entries.keySet();
+    }
+
+    /**
+     * Returns all entries in zip order. The returned {@link ZipEntry} instances are copies, so changes to them do
+     * not affect this index.
+     *
+     * @return unmodifiable list of all entries in zip order
+     */
+    public List<ZipEntry> getEntries() {
+        return this.entries.values().stream()
+                .map(ZipEntry::new)
+                .toList();
+    }
+
+    /**
+     * Checks if zip contains an entry with specified name.
+     *
+     * @param name entry name
+     * @return true if entry exists
+     */
+    public boolean contains(String name) {
+        return this.entries.containsKey(name);
+    }
+
+    /**
+     * Returns the entry of specified name. The returned {@link ZipEntry} is a copy, so changes to it do not
+     * affect this index.
+     *
+     * @param name entry name
+     * @return entry if existing
+     */
+    public Optional<ZipEntry> getEntry(String name) {
+        ZipEntry zipEntry = this.entries.get(name);
+        return zipEntry == null ? Optional.empty() : Optional.of(new ZipEntry(zipEntry));
+    }
+
+}
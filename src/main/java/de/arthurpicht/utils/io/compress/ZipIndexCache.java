@@ -0,0 +1,150 @@
+package de.arthurpicht.utils.io.compress;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Bounded LRU cache of {@link ZipIndex} instances for repeated lookups in the same zip files. Each cached index
+ * is validated against the last modified time and size of its zip file on every access and re-read if the file
+ * has changed. Cached indices hold no open file handles, so evicting them is always safe. Implementation is
+ * thread safe.
+ */
+public class ZipIndexCache {
+
+    private record CachedZipIndex(FileTime lastModifiedTime, long size, ZipIndex zipIndex) {
+    }
+
+    private final int maxSize;
+    private final Map<Path, CachedZipIndex> cache;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * @param maxSize maximum number of zip indices to be kept
+     */
+    public ZipIndexCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be greater than 0");
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedZipIndex> eldest) {
+                boolean evict = size() > ZipIndexCache.this.maxSize;
+                if (evict) evictionCount++;
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Returns the index of specified zip file, either from cache or by reading the central directory of the
+     * zip file if it is not cached yet or has been modified since.
+     *
+     * @param zipPath zip file
+     * @return index of zip file
+     * @throws IOException on error when reading zip file
+     * @throws IllegalArgumentException if specified zip file does not exist
+     */
+    public ZipIndex get(Path zipPath) throws IOException {
+        assertArgumentNotNull("zipPath", zipPath);
+        if (!Files.isRegularFile(zipPath))
+            throw new IllegalArgumentException("Specified zip file not existing: [" + zipPath.toAbsolutePath() + "].");
+
+        Path key = zipPath.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+
+        synchronized (this) {
+            CachedZipIndex cachedZipIndex = this.cache.get(key);
+            if (cachedZipIndex != null && isValid(cachedZipIndex, attributes)) {
+                this.hitCount++;
+                return cachedZipIndex.zipIndex();
+            }
+            this.missCount++;
+        }
+
+        ZipIndex zipIndex = ZipIndex.read(key);
+
+        synchronized (this) {
+            this.cache.put(key, new CachedZipIndex(attributes.lastModifiedTime(), attributes.size(), zipIndex));
+        }
+        return zipIndex;
+    }
+
+    /**
+     * @see ZipIndex#getEntryNames()
+     */
+    public Set<String> getEntryNames(Path zipPath) throws IOException {
+        return get(zipPath).getEntryNames();
+    }
+
+    /**
+     * @see ZipIndex#contains(String)
+     */
+    public boolean contains(Path zipPath, String name) throws IOException {
+        return get(zipPath).contains(name);
+    }
+
+    /**
+     * @see ZipIndex#getEntry(String)
+     */
+    public Optional<ZipEntry> getEntry(Path zipPath, String name) throws IOException {
+        return get(zipPath).getEntry(name);
+    }
+
+    /**
+     * Removes index of specified zip file from cache.
+     *
+     * @param zipPath zip file
+     */
+    public synchronized void invalidate(Path zipPath) {
+        assertArgumentNotNull("zipPath", zipPath);
+        this.cache.remove(zipPath.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Removes all indices from cache. Statistics are kept.
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+    }
+
+    /**
+     * @return number of currently cached zip indices
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    private static boolean isValid(CachedZipIndex cachedZipIndex, BasicFileAttributes attributes) {
+        return cachedZipIndex.size() == attributes.size()
+                && cachedZipIndex.lastModifiedTime().equals(attributes.lastModifiedTime());
+    }
+
+}
@@ -0,0 +1,206 @@
+package de.arthurpicht.utils.io.compress;
+
+import de.arthurpicht.utils.io.nio2.FileUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Updates an existing zip file by adding, replacing or removing entries. Unchanged entries are copied as raw
+ * compressed data, without inflating and deflating them again. Only added or replaced entries are compressed.
+ * The central directory is rebuilt. The zip file is replaced atomically, if supported by the file system.
+ * <br>
+ * Example:
+ * <pre>
+ *     new ZipUpdate(zipFile)
+ *             .withFile("conf/app.properties", propertiesFile)
+ *             .withRemovedEntry("conf/obsolete.properties")
+ *             .apply();
+ * </pre>
+ */
+public class ZipUpdate {
+
+    private final Path zipFile;
+    private final Map<String, Path> putEntries = new LinkedHashMap<>();
+    private final Set<String> removedEntries = new HashSet<>();
+
+    /**
+     * @param zipFile existing zip file to be updated
+     */
+    public ZipUpdate(Path zipFile) {
+        assertArgumentNotNull("zipFile", zipFile);
+        this.zipFile = zipFile;
+    }
+
+    /**
+     * Adds specified regular file as entry of specified name. An existing entry of same name is replaced.
+     *
+     * @param entryName name of zip entry
+     * @param file regular file
+     * @return this
+     */
+    public ZipUpdate withFile(String entryName, Path file) {
+        assertArgumentNotNull("entryName", entryName);
+        assertArgumentNotNull("file", file);
+        if (!FileUtils.isExistingRegularFile(file))
+            throw new IllegalArgumentException("File not found: [" + file.toAbsolutePath() + "].");
+        this.removedEntries.remove(entryName);
+        this.putEntries.put(entryName, file);
+        return this;
+    }
+
+    /**
+     * Adds all files and directories of specified source (directory or file) with entry names as created by
+     * {@link Zip#zip(Path, Path, boolean)}. Existing entries of same name are replaced. Symbolic links are ignored.
+     *
+     * @param source directory or file
+     * @param includeRootDir if source directory is included as root element of zip
+     * @return this
+     * @throws IOException on error when reading source
+     */
+    public ZipUpdate withSource(Path source, boolean includeRootDir) throws IOException {
+        assertArgumentNotNull("source", source);
+        if (!Files.exists(source))
+            throw new IllegalArgumentException("Source path for zip update not existing: " +
+                    "[" + source.toAbsolutePath() + "].");
+
+        Path reference = Zip.getReference(source, includeRootDir);
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (!attributes.isSymbolicLink()) put(reference.relativize(file).toString(), file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                if (!attributes.isSymbolicLink()) put(reference.relativize(dir) + "/", dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+        return this;
+    }
+
+    /**
+     * Removes entry of specified name. Nothing happens if zip file does not contain such an entry.
+     *
+     * @param entryName name of zip entry
+     * @return this
+     */
+    public ZipUpdate withRemovedEntry(String entryName) {
+        assertArgumentNotNull("entryName", entryName);
+        this.putEntries.remove(entryName);
+        this.removedEntries.add(entryName);
+        return this;
+    }
+
+    /**
+     * Performs the update.
+     *
+     * @throws IOException on error when reading or writing zip file or reading added files
+     * @throws IllegalArgumentException if zip file does not exist
+     */
+    public void apply() throws IOException {
+        if (!FileUtils.isExistingRegularFile(this.zipFile))
+            throw new IllegalArgumentException("Specified zip file not existing: " +
+                    "[" + this.zipFile.toAbsolutePath() + "].");
+
+        Path dir = this.zipFile.toAbsolutePath().getParent();
+        Path newEntriesZip = Files.createTempFile(dir, ".zipUpdate-", ".tmp");
+        Path resultZip = FileUtils.createTempFileForReplacement(this.zipFile, ".zipUpdate-");
+        try {
+            writeNewEntries(newEntriesZip);
+
+            try (FileChannel originalChannel = FileChannel.open(this.zipFile, StandardOpenOption.READ);
+                 FileChannel newEntriesChannel = FileChannel.open(newEntriesZip, StandardOpenOption.READ);
+                 FileChannel resultChannel = FileChannel.open(resultZip, StandardOpenOption.WRITE)) {
+
+                ZipCentralDirectory original = ZipCentralDirectory.read(originalChannel);
+                ZipCentralDirectory newEntries = ZipCentralDirectory.read(newEntriesChannel);
+
+                List<ZipCentralDirectory.Record> records = new ArrayList<>();
+                copyRawEntries(originalChannel, original, resultChannel, records, true);
+                copyRawEntries(newEntriesChannel, newEntries, resultChannel, records, false);
+                ZipCentralDirectory.write(resultChannel, records, resultChannel.position(), original.getComment());
+                resultChannel.force(true);
+            }
+
+            try {
+                Files.move(resultZip, this.zipFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(resultZip, this.zipFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(newEntriesZip);
+            Files.deleteIfExists(resultZip);
+        }
+    }
+
+    private void put(String entryName, Path path) {
+        this.removedEntries.remove(entryName);
+        this.putEntries.put(entryName, path);
+    }
+
+    private void writeNewEntries(Path newEntriesZip) throws IOException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(newEntriesZip), Zip.BUFFER_SIZE))) {
+            for (Map.Entry<String, Path> entry : this.putEntries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                Zip.preserveTimestamps(zipEntry, Files.readAttributes(entry.getValue(), BasicFileAttributes.class));
+                zipOutputStream.putNextEntry(zipEntry);
+                if (!zipEntry.isDirectory()) Files.copy(entry.getValue(), zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Copies local header, compressed data and data descriptor of each entry as one block. An entry's block ends
+     * where the next entry's local header or the central directory starts.
+     */
+    private void copyRawEntries(
+            FileChannel sourceChannel,
+            ZipCentralDirectory centralDirectory,
+            FileChannel targetChannel,
+            List<ZipCentralDirectory.Record> targetRecords,
+            boolean skipUpdatedEntries) throws IOException {
+
+        List<ZipCentralDirectory.Record> records = new ArrayList<>(centralDirectory.getRecords());
+        records.sort(Comparator.comparingLong(ZipCentralDirectory.Record::getLocalHeaderOffset));
+
+        for (int i = 0; i < records.size(); i++) {
+            ZipCentralDirectory.Record record = records.get(i);
+            if (skipUpdatedEntries) {
+                String name = record.getName();
+                if (this.putEntries.containsKey(name) || this.removedEntries.contains(name)) continue;
+            }
+            long start = record.getLocalHeaderOffset();
+            long end = i + 1 < records.size()
+                    ? records.get(i + 1).getLocalHeaderOffset()
+                    : centralDirectory.getCentralDirectoryOffset();
+
+            targetRecords.add(record.withLocalHeaderOffset(targetChannel.position()));
+            transferFully(sourceChannel, start, end - start, targetChannel);
+        }
+    }
+
+    private static void transferFully(FileChannel source, long position, long count, FileChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long bytes = source.transferTo(position + transferred, count - transferred, target);
+            if (bytes <= 0) throw new IOException("Unexpected end of zip file.");
+            transferred += bytes;
+        }
+    }
+
+}
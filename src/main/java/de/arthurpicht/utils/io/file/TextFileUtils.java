@@ -4,8 +4,12 @@ import de.arthurpicht.utils.core.strings.Strings;
 import de.arthurpicht.utils.io.nio2.FileUtils;
 
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -52,7 +56,8 @@ public class TextFileUtils {
 
     private static List<String> readNonCommentedLinesAsStringsUnchecked(Path path, String commentPrefix) throws IOException {
         List<String> lines = new ArrayList<>();
-        try (BufferedReader bufferedReader = new BufferedReader(new java.io.FileReader(path.toFile()))) {
+        try (BufferedReader bufferedReader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(path), Charset.defaultCharset()))) {
             String line;
             while ((line = bufferedReader.readLine()) != null) {
                 if (!commentPrefix.isEmpty() && line.stripLeading().startsWith(commentPrefix)) continue;
@@ -175,13 +180,17 @@ public class TextFileUtils {
     public static boolean endsWithNewLineOrIsEmpty(Path path) throws IOException {
         if (!FileUtils.isExistingRegularFile(path))
             throw new IllegalArgumentException("File not found: [" + path.toAbsolutePath() + "].");
-        try (RandomAccessFile fileHandler = new RandomAccessFile(path.toFile(), "r")) {
-            long fileLength = fileHandler.length() - 1;
+        try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+            long fileLength = channel.size() - 1;
             if (fileLength < 0) {
                 return true;
             }
-            fileHandler.seek(fileLength);
-            byte readByte = fileHandler.readByte();
+            channel.position(fileLength);
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new EOFException();
+            }
+            byte readByte = buffer.get(0);
             return readByte == 0xA || readByte == 0xD;
         }
     }
@@ -1,13 +1,14 @@
 package de.arthurpicht.utils.io.nio2;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -59,6 +60,44 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Creates an empty temporary file in the directory of specified target file, to be written and then moved to
+     * the target file. As opposed to {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])},
+     * which restricts permissions to the owner, the temporary file gets the POSIX permissions of the target file if
+     * existing, or the default permissions of a newly created file as given by the umask otherwise. So replacing
+     * the target file by the temporary file does not change its permissions.
+     *
+     * @param target file to be replaced by the temporary file
+     * @param prefix prefix of the temporary file name
+     * @return temporary file
+     * @throws IOException on error when creating the file or setting its permissions
+     */
+    public static Path createTempFileForReplacement(Path target, String prefix) throws IOException {
+        assertArgumentNotNull("target", target);
+        assertArgumentNotNull("prefix", prefix);
+        Path dir = target.toAbsolutePath().getParent();
+        Path tempFile;
+        while (true) {
+            tempFile = dir.resolve(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.createFile(tempFile);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // din, retry with another name
+            }
+        }
+        try {
+            if (Files.exists(target)
+                    && Files.getFileStore(tempFile).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
     public static boolean isFileOrDirectory(Path path) {
         assertArgumentNotNull("path", path);
         return Files.isRegularFile(path) || Files.isDirectory(path);
@@ -136,16 +175,21 @@ public class FileUtils {
      * @param dir Directory to be deleted.
      * @throws IOException ioException
      */
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public static void rmDir(Path dir) throws IOException {
         assertArgumentNotNull("dir", dir);
         if (!Files.exists(dir) || !Files.isDirectory(dir))
             throw new IllegalArgumentException("No such directory: " + dir.toAbsolutePath());
 
+        List<Path> paths;
         try (Stream<Path> pathStream = Files.walk(dir)) {
-            pathStream.sorted(Comparator.reverseOrder())
-                    .map(Path::toFile)
-                    .forEach(File::delete);
+            paths = pathStream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            try {
+                Files.delete(path);
+            } catch (IOException e) {
+                // din
+            }
         }
     }
 
@@ -249,7 +293,9 @@ public class FileUtils {
      * directory is not preexisting then it will be created.<br>
      * Examples:<br>
      * After copying a/b/c to x/y/c you will find a copy of c as a subdirectory of x/y/.<br>
-     * After copying a/b/c to x/y/z you will find a copy of c as z.
+     * After copying a/b/c to x/y/z you will find a copy of c as z.<br>
+     * Source and destination may belong to different file systems, e.g. a zip file system as opened by
+     * {@link de.arthurpicht.utils.io.compress.Zip#openFileSystem(Path)}.
      *
      * @param source
      * @param destination
@@ -266,18 +312,31 @@ public class FileUtils {
 
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
-                Files.createDirectories(destination.resolve(source.relativize(dir)));
+                Files.createDirectories(resolveRelative(destination, source.relativize(dir)));
                 return FileVisitResult.CONTINUE;
             }
 
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
-                Files.copy(file, destination.resolve(source.relativize(file)), options);
+                Files.copy(file, resolveRelative(destination, source.relativize(file)), options);
                 return FileVisitResult.CONTINUE;
             }
         });
     }
 
+    /**
+     * Resolves specified relative path against specified base path element by element, so that both paths may
+     * belong to different file systems.
+     */
+    private static Path resolveRelative(Path base, Path relative) {
+        if (base.getFileSystem().equals(relative.getFileSystem())) return base.resolve(relative);
+        Path result = base;
+        for (Path element : relative) {
+            result = result.resolve(element.toString());
+        }
+        return result;
+    }
+
     /**
      * Returns a list of paths, denoting all regular files found recursively in specified directory.
      *
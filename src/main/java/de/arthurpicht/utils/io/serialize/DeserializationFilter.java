@@ -0,0 +1,160 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.ObjectInputFilter;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ObjectInputFilter} rejecting java serialization streams that exceed configured limits or contain classes
+ * not explicitly allowed. Limits are checked on each object and array read, before the object is created, so that
+ * pathological input is rejected before it consumes memory. Filters are configured by using enclosed
+ * {@link Builder} class and applied by {@link SerializerOptions.Builder#withInputFilter(ObjectInputFilter)}.
+ * <br>
+ * If allowed classes or packages are configured, all other classes are rejected. This includes superclasses and
+ * array component types of serialized classes, e.g. {@link Number} for {@link Integer}. Arrays of primitives and
+ * of {@link Object}, as used internally by collections, are always allowed. Decisions are cached per class. If
+ * no classes or packages are configured, classes are left undecided, so that only limits apply.
+ * <br>
+ * Example:
+ * <pre>
+ *     DeserializationFilter filter = new DeserializationFilter.Builder()
+ *             .withAllowedPackages("java.lang", "java.util", "com.example.model")
+ *             .withMaxDepth(20)
+ *             .withMaxBytes(16 * 1024 * 1024)
+ *             .build();
+ * </pre>
+ */
+public class DeserializationFilter implements ObjectInputFilter {
+
+    private final Set<String> allowedClasses;
+    private final Set<String> allowedPackages;
+    private final long maxDepth;
+    private final long maxReferences;
+    private final long maxArrayLength;
+    private final long maxBytes;
+
+    private final ClassValue<Boolean> allowedCache = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isAllowed(type);
+        }
+    };
+
+    public static class Builder {
+
+        private final Set<String> allowedClasses = new HashSet<>();
+        private final Set<String> allowedPackages = new HashSet<>();
+        private long maxDepth = Long.MAX_VALUE;
+        private long maxReferences = Long.MAX_VALUE;
+        private long maxArrayLength = Long.MAX_VALUE;
+        private long maxBytes = Long.MAX_VALUE;
+
+        /**
+         * Allows specified classes. Subclasses are not allowed implicitly.
+         */
+        public Builder withAllowedClasses(Class<?>... classes) {
+            for (Class<?> allowedClass : classes) {
+                if (allowedClass == null) throw new IllegalArgumentException("classes must not contain null");
+                this.allowedClasses.add(allowedClass.getName());
+            }
+            return this;
+        }
+
+        /**
+         * Allows all classes of specified packages. Subpackages are not allowed implicitly.
+         */
+        public Builder withAllowedPackages(String... packageNames) {
+            for (String packageName : packageNames) {
+                if (packageName == null) throw new IllegalArgumentException("packageNames must not contain null");
+                this.allowedPackages.add(packageName);
+            }
+            return this;
+        }
+
+        /**
+         * Maximum nesting depth of the object graph. Default: unlimited.
+         */
+        public Builder withMaxDepth(long maxDepth) {
+            this.maxDepth = assertPositive("maxDepth", maxDepth);
+            return this;
+        }
+
+        /**
+         * Maximum number of object references in the stream. Default: unlimited.
+         */
+        public Builder withMaxReferences(long maxReferences) {
+            this.maxReferences = assertPositive("maxReferences", maxReferences);
+            return this;
+        }
+
+        /**
+         * Maximum length of a single array. Default: unlimited.
+         */
+        public Builder withMaxArrayLength(long maxArrayLength) {
+            this.maxArrayLength = assertPositive("maxArrayLength", maxArrayLength);
+            return this;
+        }
+
+        /**
+         * Maximum number of bytes read from the uncompressed stream. Default: unlimited.
+         */
+        public Builder withMaxBytes(long maxBytes) {
+            this.maxBytes = assertPositive("maxBytes", maxBytes);
+            return this;
+        }
+
+        public DeserializationFilter build() {
+            return new DeserializationFilter(this.allowedClasses, this.allowedPackages,
+                    this.maxDepth, this.maxReferences, this.maxArrayLength, this.maxBytes);
+        }
+
+        private static long assertPositive(String name, long value) {
+            if (value <= 0) throw new IllegalArgumentException(name + " must be greater than 0");
+            return value;
+        }
+
+    }
+
+    private DeserializationFilter(Set<String> allowedClasses, Set<String> allowedPackages,
+                                  long maxDepth, long maxReferences, long maxArrayLength, long maxBytes) {
+        this.allowedClasses = Set.copyOf(allowedClasses);
+        this.allowedPackages = Set.copyOf(allowedPackages);
+        this.maxDepth = maxDepth;
+        this.maxReferences = maxReferences;
+        this.maxArrayLength = maxArrayLength;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Status checkInput(FilterInfo filterInfo) {
+        if (filterInfo.depth() > this.maxDepth
+                || filterInfo.references() > this.maxReferences
+                || filterInfo.arrayLength() > this.maxArrayLength
+                || filterInfo.streamBytes() > this.maxBytes) {
+            return Status.REJECTED;
+        }
+
+        Class<?> serialClass = filterInfo.serialClass();
+        if (serialClass == null || (this.allowedClasses.isEmpty() && this.allowedPackages.isEmpty()))
+            return Status.UNDECIDED;
+        return this.allowedCache.get(serialClass) ? Status.ALLOWED : Status.REJECTED;
+    }
+
+    private boolean isAllowed(Class<?> type) {
+        while (type.isArray()) type = type.getComponentType();
+        if (type.isPrimitive() || type == Object.class) return true;
+        return this.allowedClasses.contains(type.getName())
+                || this.allowedPackages.contains(type.getPackageName());
+    }
+
+    @Override
+    public String toString() {
+        return "DeserializationFilter{allowedClasses=" + this.allowedClasses
+                + ", allowedPackages=" + this.allowedPackages
+                + ", maxDepth=" + this.maxDepth
+                + ", maxReferences=" + this.maxReferences
+                + ", maxArrayLength=" + this.maxArrayLength
+                + ", maxBytes=" + this.maxBytes + "}";
+    }
+
+}
@@ -1,20 +1,56 @@
 package de.arthurpicht.utils.io.serialize;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.*;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
 
 public class GenericObjectSerializer {
 
+    private static final int STREAM_MAGIC = 0xACED;
+    private static final int GZIP_MAGIC = 0x1F8B;
+
     /**
-     * Serializes specified object to specified file.
+     * Serializes specified object to specified file with default options, see {@link SerializerOptions#defaults()}.
      *
      * @param object Object of type T, to be serialized
      * @param file destination file
      * @throws SerializerException - if an error occurs
      */
     public static<T> void serialize(T object, File file) throws SerializerException {
+        assertArgumentNotNull("file", file);
+        serialize(object, file.toPath(), SerializerOptions.defaults());
+    }
 
-        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new FileOutputStream(file))) {
-            objectOutputStream.writeObject(object);
+    /**
+     * Serializes specified object to specified file by java serialization.
+     *
+     * @param object Object of type T, to be serialized
+     * @param file destination file
+     * @param options buffering, compression and atomic write options
+     * @throws SerializerException - if an error occurs
+     */
+    public static <T> void serialize(T object, Path file, SerializerOptions options) throws SerializerException {
+        serialize(object, file, options, new JavaSerializationCodec<>());
+    }
+
+    /**
+     * Serializes specified object to specified file by specified codec.
+     *
+     * @param object Object of type T, to be serialized
+     * @param file destination file
+     * @param options buffering, compression and atomic write options
+     * @param codec codec, e.g. {@link RecordCodec}
+     * @throws SerializerException - if an error occurs
+     */
+    public static <T> void serialize(T object, Path file, SerializerOptions options, ObjectCodec<T> codec) throws SerializerException {
+        assertArgumentNotNull("file", file);
+        assertArgumentNotNull("options", options);
+        assertArgumentNotNull("codec", codec);
+        try {
+            write(file, options, outputStream -> codec.encode(object, outputStream));
         } catch (IOException e) {
             throw new SerializerException(e);
         }
@@ -28,14 +64,153 @@ public class GenericObjectSerializer {
      * @return Object of type T
      * @throws SerializerException - if an error occurs
      */
-    @SuppressWarnings("unchecked")
     public static <T> T deserialize(File file) throws SerializerException {
+        assertArgumentNotNull("file", file);
+        return deserialize(file.toPath(), SerializerOptions.defaults());
+    }
 
-        try (ObjectInputStream objectInputStream = new ObjectInputStream(new FileInputStream(file))) {
-            return (T) objectInputStream.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+    /**
+     * Reads stream from passed file and deserializes stream to instance of passed transient object by java
+     * serialization. Compression is detected automatically.
+     *
+     * @param file source file
+     * @param options buffering options and input filter
+     * @return Object of type T
+     * @throws SerializerException - if an error occurs
+     */
+    public static <T> T deserialize(Path file, SerializerOptions options) throws SerializerException {
+        return deserialize(file, options, new JavaSerializationCodec<>());
+    }
+
+    /**
+     * Reads specified file and decodes its content by specified codec. For codecs other than
+     * {@link JavaSerializationCodec}, compression is not detected and must be specified in options as on
+     * serialization. The input filter of options is applied to a {@link JavaSerializationCodec} without own filter.
+     *
+     * @param file source file
+     * @param options buffering and compression options
+     * @param codec codec as used on serialization
+     * @return Object of type T
+     * @throws SerializerException - if an error occurs
+     */
+    public static <T> T deserialize(Path file, SerializerOptions options, ObjectCodec<T> codec) throws SerializerException {
+        assertArgumentNotNull("file", file);
+        assertArgumentNotNull("options", options);
+        assertArgumentNotNull("codec", codec);
+        boolean detectCompression = codec instanceof JavaSerializationCodec;
+        ObjectCodec<T> filteringCodec = applyInputFilter(codec, options);
+        try (InputStream fileInputStream = Files.newInputStream(file);
+             InputStream inputStream = newInputStream(fileInputStream, options, detectCompression)) {
+            return filteringCodec.decode(inputStream);
+        } catch (IOException e) {
             throw new SerializerException(e);
         }
     }
 
+    /**
+     * Returns a codec with the input filter of specified options, if specified codec is a
+     * {@link JavaSerializationCodec} without own filter. Otherwise, specified codec is returned.
+     */
+    static <T> ObjectCodec<T> applyInputFilter(ObjectCodec<T> codec, SerializerOptions options) {
+        if (options.getInputFilter() != null
+                && codec instanceof JavaSerializationCodec<T> javaSerializationCodec
+                && javaSerializationCodec.getInputFilter() == null) {
+            return new JavaSerializationCodec<>(options.getInputFilter());
+        }
+        return codec;
+    }
+
+    interface StreamWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Writes specified file by specified writer through a buffered and, if configured, compressing stream. If
+     * atomic write is configured, a temporary file is written, forced to storage device and moved to the
+     * destination file.
+     */
+    static void write(Path file, SerializerOptions options, StreamWriter streamWriter) throws IOException {
+        SerializerOutput serializerOutput = SerializerOutput.open(file, options);
+        try {
+            streamWriter.write(serializerOutput.getOutputStream());
+        } catch (IOException | RuntimeException | Error e) {
+            serializerOutput.abort();
+            throw e;
+        }
+        serializerOutput.commit();
+    }
+
+    /**
+     * Wraps specified stream in a buffered and, if configured, compressing stream. Closing the returned stream
+     * finishes compression and closes specified stream.
+     */
+    static OutputStream newOutputStream(OutputStream outputStream, SerializerOptions options) throws IOException {
+        OutputStream bufferedOutputStream = new BufferedOutputStream(outputStream, options.getBufferSize());
+        int level = options.getCompressionLevel();
+        return switch (options.getCompression()) {
+            case NONE -> bufferedOutputStream;
+            case GZIP -> new GZIPOutputStream(bufferedOutputStream, options.getBufferSize()) {
+                {
+                    this.def.setLevel(level);
+                }
+            };
+            case DEFLATE -> new DeflaterOutputStream(bufferedOutputStream, new Deflater(level), options.getBufferSize()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        this.def.end();
+                    }
+                }
+            };
+        };
+    }
+
+    /**
+     * Wraps specified stream in a buffered and, if compressed, decompressing stream. Compression is either
+     * detected, which is only reliable for java serialization streams, or taken from specified options. Closing
+     * the returned stream closes specified stream.
+     */
+    static InputStream newInputStream(InputStream inputStream, SerializerOptions options, boolean detectCompression) throws IOException {
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream, options.getBufferSize());
+        if (!detectCompression) return newDecompressingInputStream(bufferedInputStream, options.getCompression(), options);
+
+        bufferedInputStream.mark(2);
+        int magic = (bufferedInputStream.read() << 8) | bufferedInputStream.read();
+        bufferedInputStream.reset();
+
+        SerializerOptions.Compression compression;
+        if (magic == GZIP_MAGIC) {
+            compression = SerializerOptions.Compression.GZIP;
+        } else if (magic != STREAM_MAGIC && isZlibHeader(magic)) {
+            compression = SerializerOptions.Compression.DEFLATE;
+        } else {
+            compression = SerializerOptions.Compression.NONE;
+        }
+        return newDecompressingInputStream(bufferedInputStream, compression, options);
+    }
+
+    private static InputStream newDecompressingInputStream(
+            InputStream inputStream, SerializerOptions.Compression compression, SerializerOptions options) throws IOException {
+        return switch (compression) {
+            case NONE -> inputStream;
+            case GZIP -> new GZIPInputStream(inputStream, options.getBufferSize());
+            case DEFLATE -> new InflaterInputStream(inputStream, new Inflater(), options.getBufferSize()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        this.inf.end();
+                    }
+                }
+            };
+        };
+    }
+
+    private static boolean isZlibHeader(int magic) {
+        return magic >= 0 && (magic >> 8 & 0x0F) == Deflater.DEFLATED && magic % 31 == 0;
+    }
+
 }
@@ -0,0 +1,71 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.*;
+
+/**
+ * Codec based on java serialization. Supports any {@link Serializable} object graph. Each call of
+ * {@link #encode(Object, OutputStream)} writes a complete serialization stream, including stream header.
+ * <br>
+ * An {@link ObjectInputFilter}, e.g. a {@link DeserializationFilter}, can be specified to restrict the classes
+ * and the size of object graphs accepted on decoding.
+ *
+ * @param <T> type of encoded objects
+ */
+public class JavaSerializationCodec<T> implements ObjectCodec<T> {
+
+    private final ObjectInputFilter inputFilter;
+
+    /**
+     * Creates a codec applying only the JVM-wide filter, if any, on decoding.
+     */
+    public JavaSerializationCodec() {
+        this.inputFilter = null;
+    }
+
+    /**
+     * Creates a codec applying specified filter on decoding, in addition to the JVM-wide filter, if any.
+     *
+     * @param inputFilter filter
+     */
+    public JavaSerializationCodec(ObjectInputFilter inputFilter) {
+        if (inputFilter == null) throw new IllegalArgumentException("inputFilter must not be null");
+        this.inputFilter = inputFilter;
+    }
+
+    @Override
+    public void encode(T object, OutputStream outputStream) throws IOException {
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeObject(object);
+        objectOutputStream.flush();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T decode(InputStream inputStream) throws IOException {
+        ObjectInputStream objectInputStream = newObjectInputStream(inputStream);
+        try {
+            return (T) objectInputStream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Class not found: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return filter applied on decoding or null if only the JVM-wide filter is applied
+     */
+    public ObjectInputFilter getInputFilter() {
+        return this.inputFilter;
+    }
+
+    ObjectInputStream newObjectInputStream(InputStream inputStream) throws IOException {
+        ObjectInputStream objectInputStream = new ObjectInputStream(inputStream);
+        if (this.inputFilter != null) {
+            ObjectInputFilter serialFilter = ObjectInputFilter.Config.getSerialFilter();
+            objectInputStream.setObjectInputFilter(serialFilter == null
+                    ? this.inputFilter
+                    : ObjectInputFilter.merge(this.inputFilter, serialFilter));
+        }
+        return objectInputStream;
+    }
+
+}
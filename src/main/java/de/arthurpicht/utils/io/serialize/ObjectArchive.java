@@ -0,0 +1,503 @@
+package de.arthurpicht.utils.io.serialize;
+
+import de.arthurpicht.utils.io.nio2.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Archive of many serialized objects in one file, each accessible by a string key. Avoids a file per object and
+ * allows reading single objects without reading the whole archive.
+ * <br>
+ * File layout: a header, an append-only data section holding the encoded objects and indexes, each followed by
+ * a fixed size footer pointing to the index. The header points to the footer of the last committed index. The
+ * index is an open addressing hash table of all keys, which is memory mapped, so that
+ * {@link #get(String, ObjectCodec)} needs a constant number of index lookups and a single positional read.
+ * <br>
+ * Objects that are put are appended to the data section and become visible to {@link #get(String, ObjectCodec)}
+ * immediately. They are persisted by {@link #flush()} or {@link #close()}, which append a new index, force it to
+ * the storage device and only then commit it in the header. If the process crashes before, the archive is
+ * opened with the last committed index and bytes written after it are discarded. Replaced and removed objects,
+ * as well as previous indexes, remain in the file as garbage until {@link #compact()} is called.
+ * <br>
+ * Objects are decoded by the codec passed to {@link #get(String, ObjectCodec)}, which must match the codec used
+ * for {@link #put(String, Object, ObjectCodec)}. Instances are thread safe.
+ * <br>
+ * Example:
+ * <pre>
+ *     try (ObjectArchive archive = ObjectArchive.open(archiveFile)) {
+ *         archive.put("config", config);
+ *         Optional&lt;Config&gt; config = archive.get("config");
+ *     }
+ * </pre>
+ */
+public class ObjectArchive implements Closeable {
+
+    private static final int MAGIC = 0x41504F41;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COMMITTED_FOOTER_POSITION = 8;
+    private static final int FOOTER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+
+    private static final Entry REMOVED = new Entry(-1, 0);
+
+    private record Entry(long offset, int length) {
+    }
+
+    private final Path file;
+    private final boolean readOnly;
+    private FileChannel fileChannel;
+
+    private MappedByteBuffer index;
+    private int indexSlotCount;
+    private int indexEntryCount;
+    private final Map<String, Entry> changes = new LinkedHashMap<>();
+
+    private int size;
+    private long liveDataSize;
+    private long appendPosition;
+    private boolean closed = false;
+
+    private ObjectArchive(Path file, boolean readOnly, FileChannel fileChannel) {
+        this.file = file;
+        this.readOnly = readOnly;
+        this.fileChannel = fileChannel;
+    }
+
+    /**
+     * Opens specified archive file for reading and writing. The file is created, if not existing.
+     *
+     * @param file archive file
+     * @return archive
+     * @throws IOException on error when reading or creating file or if file is no valid archive
+     */
+    public static ObjectArchive open(Path file) throws IOException {
+        assertArgumentNotNull("file", file);
+        FileChannel fileChannel = FileChannel.open(file,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        return open(file, false, fileChannel);
+    }
+
+    /**
+     * Opens specified archive file for reading only.
+     *
+     * @param file archive file
+     * @return archive
+     * @throws IOException on error when reading file or if file is no valid archive
+     * @throws IllegalArgumentException if specified file does not exist
+     */
+    public static ObjectArchive openReadOnly(Path file) throws IOException {
+        assertArgumentNotNull("file", file);
+        if (!Files.isRegularFile(file))
+            throw new IllegalArgumentException("Specified archive file not existing: [" + file.toAbsolutePath() + "].");
+        return open(file, true, FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    private static ObjectArchive open(Path file, boolean readOnly, FileChannel fileChannel) throws IOException {
+        ObjectArchive objectArchive = new ObjectArchive(file, readOnly, fileChannel);
+        try {
+            if (fileChannel.size() == 0 && !readOnly) {
+                objectArchive.initialize();
+            } else {
+                objectArchive.readFooter();
+            }
+            return objectArchive;
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    private void initialize() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+        writeFully(header, 0);
+        this.appendPosition = HEADER_SIZE;
+        writeIndex(List.of());
+    }
+
+    private void readFooter() throws IOException {
+        long fileSize = this.fileChannel.size();
+        if (fileSize < HEADER_SIZE + FOOTER_SIZE) throw invalidArchive("file too short");
+
+        ByteBuffer header = readFully(0, HEADER_SIZE);
+        if (header.getInt() != MAGIC) throw invalidArchive("no archive header");
+        int version = header.getInt();
+        if (version != VERSION) throw invalidArchive("unsupported version " + version);
+
+        long footerOffset = header.getLong();
+        if (footerOffset < HEADER_SIZE || footerOffset > fileSize - FOOTER_SIZE)
+            throw invalidArchive("no committed index");
+
+        ByteBuffer footer = readFully(footerOffset, FOOTER_SIZE);
+        long indexOffset = footer.getLong();
+        long indexLength = footer.getLong();
+        long liveDataSize = footer.getLong();
+        int entryCount = footer.getInt();
+        if (footer.getInt() != MAGIC) throw invalidArchive("no archive footer");
+        if (indexOffset < HEADER_SIZE || indexLength > Integer.MAX_VALUE || entryCount < 0
+                || indexOffset + indexLength != footerOffset)
+            throw invalidArchive("invalid footer");
+
+        mapIndex(indexOffset, indexLength, entryCount);
+        this.size = entryCount;
+        this.liveDataSize = liveDataSize;
+        this.appendPosition = footerOffset + FOOTER_SIZE;
+        // discard objects and indexes not committed before a crash
+        if (!this.readOnly && this.appendPosition < fileSize) this.fileChannel.truncate(this.appendPosition);
+    }
+
+    private void mapIndex(long indexOffset, long indexLength, int entryCount) throws IOException {
+        this.index = this.fileChannel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexLength);
+        this.indexSlotCount = this.index.getInt(0);
+        this.indexEntryCount = entryCount;
+        if (Integer.bitCount(this.indexSlotCount) != 1 || 4L + (long) this.indexSlotCount * SLOT_SIZE > indexLength)
+            throw invalidArchive("invalid index");
+    }
+
+    private IOException invalidArchive(String reason) {
+        return new IOException("Invalid archive file [" + this.file.toAbsolutePath() + "]: " + reason + ".");
+    }
+
+    /**
+     * Puts specified object by java serialization.
+     *
+     * @see #put(String, Object, ObjectCodec)
+     */
+    public <T> void put(String key, T object) throws IOException {
+        put(key, object, new JavaSerializationCodec<>());
+    }
+
+    /**
+     * Appends specified object to the data section. An object previously put with the same key is replaced.
+     *
+     * @param key key
+     * @param object object
+     * @param codec codec for object
+     * @throws IOException on error when encoding or writing
+     */
+    public <T> void put(String key, T object, ObjectCodec<T> codec) throws IOException {
+        assertArgumentNotNull("key", key);
+        assertArgumentNotNull("codec", codec);
+        ByteBuffer data = codec.encode(object);
+        synchronized (this) {
+            assertWritable();
+            long offset = this.appendPosition;
+            int length = data.remaining();
+            writeFully(data, offset);
+            this.appendPosition += length;
+
+            Entry previous = this.changes.put(key, new Entry(offset, length));
+            if (previous == null) previous = lookupIndex(key);
+            if (previous == null || previous == REMOVED) {
+                this.size++;
+            } else {
+                this.liveDataSize -= previous.length();
+            }
+            this.liveDataSize += length;
+        }
+    }
+
+    /**
+     * Gets object of specified key by java serialization.
+     *
+     * @see #get(String, ObjectCodec)
+     */
+    public <T> Optional<T> get(String key) throws IOException {
+        return get(key, new JavaSerializationCodec<>());
+    }
+
+    /**
+     * Reads and decodes object of specified key.
+     *
+     * @param key key
+     * @param codec codec as used on {@link #put(String, Object, ObjectCodec)}
+     * @return object if key is contained
+     * @throws IOException on error when reading or decoding
+     */
+    public <T> Optional<T> get(String key, ObjectCodec<T> codec) throws IOException {
+        assertArgumentNotNull("key", key);
+        assertArgumentNotNull("codec", codec);
+        ByteBuffer data;
+        synchronized (this) {
+            assertOpen();
+            Entry entry = lookup(key);
+            if (entry == null) return Optional.empty();
+            data = readFully(entry.offset(), entry.length());
+        }
+        return Optional.of(codec.decode(data));
+    }
+
+    /**
+     * Checks if archive contains specified key.
+     */
+    public synchronized boolean contains(String key) {
+        assertArgumentNotNull("key", key);
+        assertOpen();
+        return lookup(key) != null;
+    }
+
+    /**
+     * Removes specified key. Encoded object remains in the file until {@link #compact()}.
+     *
+     * @return true if archive contained specified key
+     */
+    public synchronized boolean remove(String key) {
+        assertArgumentNotNull("key", key);
+        assertWritable();
+        Entry entry = lookup(key);
+        if (entry == null) return false;
+        this.changes.put(key, REMOVED);
+        this.size--;
+        this.liveDataSize -= entry.length();
+        return true;
+    }
+
+    /**
+     * @return all keys in unspecified order
+     */
+    public synchronized Set<String> getKeys() {
+        assertOpen();
+        Set<String> keys = new LinkedHashSet<>();
+        for (Map.Entry<String, Entry> indexEntry : readIndexEntries()) {
+            if (!this.changes.containsKey(indexEntry.getKey())) keys.add(indexEntry.getKey());
+        }
+        this.changes.forEach((key, entry) -> {
+            if (entry != REMOVED) keys.add(key);
+        });
+        return keys;
+    }
+
+    /**
+     * @return number of contained keys
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * @return total size of all contained encoded objects in bytes
+     */
+    public synchronized long getLiveDataSize() {
+        return this.liveDataSize;
+    }
+
+    /**
+     * @return number of bytes of replaced or removed objects and of previous indexes, reclaimed by
+     *         {@link #compact()}
+     */
+    public synchronized long getGarbageSize() {
+        long indexSize = this.changes.isEmpty() ? this.index.capacity() + FOOTER_SIZE : 0;
+        return this.appendPosition - HEADER_SIZE - this.liveDataSize - indexSize;
+    }
+
+    /**
+     * Appends a new index of all contained keys and forces the file to storage device, if anything has changed
+     * since the last flush.
+     *
+     * @throws IOException on error when writing
+     */
+    public synchronized void flush() throws IOException {
+        assertOpen();
+        if (this.readOnly || this.changes.isEmpty()) return;
+        List<Map.Entry<String, Entry>> entries = new ArrayList<>(this.size);
+        for (Map.Entry<String, Entry> indexEntry : readIndexEntries()) {
+            if (!this.changes.containsKey(indexEntry.getKey())) entries.add(indexEntry);
+        }
+        this.changes.forEach((key, entry) -> {
+            if (entry != REMOVED) entries.add(Map.entry(key, entry));
+        });
+        writeIndex(entries);
+        this.changes.clear();
+    }
+
+    /**
+     * Rewrites the archive without garbage. A new file containing only the current objects is written and
+     * moved to the archive file, atomically if supported by the file system. The archive remains open.
+     *
+     * @throws IOException on error when writing
+     */
+    public synchronized void compact() throws IOException {
+        assertWritable();
+        flush();
+        List<Map.Entry<String, Entry>> entries = readIndexEntries();
+
+        Path tempFile = FileUtils.createTempFileForReplacement(this.file, "." + this.file.getFileName() + "-");
+        try (ObjectArchive compacted = open(tempFile)) {
+            // drop the empty index written on creation
+            compacted.fileChannel.truncate(HEADER_SIZE);
+            compacted.appendPosition = HEADER_SIZE;
+            List<Map.Entry<String, Entry>> compactedEntries = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Entry> indexEntry : entries) {
+                Entry entry = indexEntry.getValue();
+                long offset = compacted.appendPosition;
+                long transferred = 0;
+                while (transferred < entry.length()) {
+                    transferred += this.fileChannel.transferTo(entry.offset() + transferred,
+                            entry.length() - transferred, compacted.fileChannel.position(offset + transferred));
+                }
+                compacted.appendPosition += entry.length();
+                compactedEntries.add(Map.entry(indexEntry.getKey(), new Entry(offset, entry.length())));
+                compacted.size++;
+                compacted.liveDataSize += entry.length();
+            }
+            // written even if empty, as flush would skip an archive without changes
+            compacted.writeIndex(compactedEntries);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        this.index = null;
+        this.fileChannel.close();
+        try {
+            Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+            this.fileChannel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            readFooter();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+        try {
+            flush();
+        } finally {
+            this.closed = true;
+            this.index = null;
+            this.fileChannel.close();
+        }
+    }
+
+    private void writeIndex(List<Map.Entry<String, Entry>> entries) throws IOException {
+        int slotCount = Integer.highestOneBit(Math.max(2, entries.size() * 2 - 1)) << 1;
+        long[] slots = new long[slotCount * 2];
+        ByteArrayOutputStream entriesBytes = new ByteArrayOutputStream();
+        DataOutputStream entriesOut = new DataOutputStream(entriesBytes);
+        int entriesStart = 4 + slotCount * SLOT_SIZE;
+
+        for (Map.Entry<String, Entry> indexEntry : entries) {
+            byte[] key = indexEntry.getKey().getBytes(StandardCharsets.UTF_8);
+            long hash = hash(key);
+            int slot = slotOf(hash, slotCount);
+            while (slots[slot * 2] != 0) slot = (slot + 1) & (slotCount - 1);
+            slots[slot * 2] = hash;
+            slots[slot * 2 + 1] = entriesStart + entriesOut.size();
+
+            entriesOut.writeInt(key.length);
+            entriesOut.write(key);
+            entriesOut.writeLong(indexEntry.getValue().offset());
+            entriesOut.writeInt(indexEntry.getValue().length());
+        }
+
+        long indexLength = (long) entriesStart + entriesOut.size();
+        if (indexLength > Integer.MAX_VALUE) throw new IOException("Archive index exceeds 2 GB.");
+        ByteBuffer buffer = ByteBuffer.allocate((int) indexLength + FOOTER_SIZE);
+        buffer.putInt(slotCount);
+        for (long slotValue : slots) buffer.putLong(slotValue);
+        buffer.put(entriesBytes.toByteArray());
+        buffer.putLong(this.appendPosition).putLong(indexLength).putLong(this.liveDataSize)
+                .putInt(entries.size()).putInt(MAGIC);
+        buffer.flip();
+
+        long indexOffset = this.appendPosition;
+        long footerOffset = indexOffset + indexLength;
+        writeFully(buffer, indexOffset);
+        this.fileChannel.force(true);
+        // commit only after index is on storage device, so that a crash leaves the previous index valid
+        writeFully(ByteBuffer.allocate(8).putLong(footerOffset).flip(), COMMITTED_FOOTER_POSITION);
+        this.fileChannel.force(true);
+        this.appendPosition += buffer.capacity();
+        mapIndex(indexOffset, indexLength, entries.size());
+    }
+
+    private List<Map.Entry<String, Entry>> readIndexEntries() {
+        List<Map.Entry<String, Entry>> entries = new ArrayList<>(this.indexEntryCount);
+        int position = 4 + this.indexSlotCount * SLOT_SIZE;
+        for (int i = 0; i < this.indexEntryCount; i++) {
+            int keyLength = this.index.getInt(position);
+            byte[] key = new byte[keyLength];
+            this.index.get(position + 4, key);
+            position += 4 + keyLength;
+            entries.add(Map.entry(new String(key, StandardCharsets.UTF_8),
+                    new Entry(this.index.getLong(position), this.index.getInt(position + 8))));
+            position += 12;
+        }
+        return entries;
+    }
+
+    private Entry lookup(String key) {
+        Entry entry = this.changes.get(key);
+        if (entry == null) entry = lookupIndex(key);
+        return entry == REMOVED ? null : entry;
+    }
+
+    private Entry lookupIndex(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        int slot = slotOf(hash, this.indexSlotCount);
+        while (true) {
+            long slotHash = this.index.getLong(4 + slot * SLOT_SIZE);
+            if (slotHash == 0) return null;
+            if (slotHash == hash) {
+                int position = (int) this.index.getLong(4 + slot * SLOT_SIZE + 8);
+                if (this.index.getInt(position) == keyBytes.length
+                        && this.index.slice(position + 4, keyBytes.length).equals(ByteBuffer.wrap(keyBytes))) {
+                    position += 4 + keyBytes.length;
+                    return new Entry(this.index.getLong(position), this.index.getInt(position + 8));
+                }
+            }
+            slot = (slot + 1) & (this.indexSlotCount - 1);
+        }
+    }
+
+    private static long hash(byte[] key) {
+        // FNV-1a, 0 marks empty slots
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int slotOf(long hash, int slotCount) {
+        return (int) (hash ^ (hash >>> 32)) & (slotCount - 1);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += this.fileChannel.write(buffer, position);
+        }
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = this.fileChannel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("Unexpected end of archive file [" + this.file.toAbsolutePath() + "].");
+        }
+        return buffer.flip();
+    }
+
+    private void assertOpen() {
+        if (this.closed) throw new IllegalStateException("ObjectArchive closed.");
+    }
+
+    private void assertWritable() {
+        assertOpen();
+        if (this.readOnly) throw new IllegalStateException("ObjectArchive opened read only.");
+    }
+
+}
@@ -0,0 +1,49 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes objects of type T to and decodes them from a stream. Implementations are used by
+ * {@link GenericObjectSerializer} and must be thread safe. See {@link JavaSerializationCodec} and
+ * {@link RecordCodec} for provided implementations.
+ *
+ * @param <T> type of encoded objects
+ */
+public interface ObjectCodec<T> {
+
+    /**
+     * Writes specified object to specified stream. Stream is not closed.
+     */
+    void encode(T object, OutputStream outputStream) throws IOException;
+
+    /**
+     * Reads one object from specified stream, as written by {@link #encode(Object, OutputStream)}. Stream is not
+     * closed.
+     */
+    T decode(InputStream inputStream) throws IOException;
+
+    default ByteBuffer encode(T object) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        encode(object, outputStream);
+        return ByteBuffer.wrap(outputStream.toByteArray());
+    }
+
+    /**
+     * Decodes one object from the remaining bytes of specified buffer. Buffer position is not changed.
+     */
+    default T decode(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            return decode(new ByteArrayInputStream(
+                    buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()));
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), bytes);
+        return decode(new ByteArrayInputStream(bytes));
+    }
+
+}
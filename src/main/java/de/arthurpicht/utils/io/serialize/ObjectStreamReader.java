@@ -0,0 +1,158 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Reads a sequence of objects as written by {@link ObjectStreamWriter}, lazily one at a time. Objects are
+ * provided by {@link #iterator()} or {@link #stream()}, which can be called once. Errors on reading are thrown as
+ * {@link UncheckedIOException}.
+ * <br>
+ * Example:
+ * <pre>
+ *     try (ObjectStreamReader&lt;Entry&gt; reader = new ObjectStreamReader&lt;&gt;(file, options)) {
+ *         reader.stream().filter(...).forEach(...);
+ *     }
+ * </pre>
+ *
+ * @param <T> type of read objects
+ */
+public class ObjectStreamReader<T> implements Closeable, Iterable<T> {
+
+    private static final int ELEMENT = 1;
+    private static final int END = 0;
+
+    private final InputStream inputStream;
+    private final ObjectCodec<T> codec;
+    private final ObjectInputStream objectInputStream;
+    private final DataInputStream dataInputStream;
+
+    private boolean iteratorCreated = false;
+
+    /**
+     * Creates a reader using java serialization. Compression is detected automatically.
+     *
+     * @param file source file
+     * @param options buffering options and input filter
+     * @throws IOException on error when opening file
+     */
+    public ObjectStreamReader(Path file, SerializerOptions options) throws IOException {
+        this(file, options, new JavaSerializationCodec<>());
+    }
+
+    /**
+     * @param file source file
+     * @param options buffering and, for codecs other than java serialization, compression options. The input
+     *                filter is applied to a {@link JavaSerializationCodec} without own filter, limits apply to the
+     *                whole stream.
+     * @param codec codec as used on writing
+     * @throws IOException on error when opening file
+     */
+    public ObjectStreamReader(Path file, SerializerOptions options, ObjectCodec<T> codec) throws IOException {
+        assertArgumentNotNull("file", file);
+        assertArgumentNotNull("options", options);
+        assertArgumentNotNull("codec", codec);
+        this.codec = codec;
+        InputStream fileInputStream = Files.newInputStream(file);
+        try {
+            boolean javaSerialization = codec instanceof JavaSerializationCodec;
+            this.inputStream = GenericObjectSerializer.newInputStream(fileInputStream, options, javaSerialization);
+            this.objectInputStream = javaSerialization
+                    ? ((JavaSerializationCodec<T>) GenericObjectSerializer.applyInputFilter(codec, options))
+                            .newObjectInputStream(this.inputStream)
+                    : null;
+            this.dataInputStream = javaSerialization ? null : new DataInputStream(this.inputStream);
+        } catch (IOException | RuntimeException e) {
+            fileInputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return lazy iterator over all objects, can be called once
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (this.iteratorCreated) throw new IllegalStateException("Iterator already created.");
+        this.iteratorCreated = true;
+        return new Iterator<>() {
+
+            private T next;
+            private boolean nextRead = false;
+            private boolean end = false;
+
+            @Override
+            public boolean hasNext() {
+                if (this.nextRead) return true;
+                if (this.end) return false;
+                try {
+                    int marker = readMarker();
+                    if (marker == END) {
+                        this.end = true;
+                        return false;
+                    }
+                    if (marker != ELEMENT) throw new IOException("Invalid element marker: " + marker + ".");
+                    this.next = readElement();
+                    this.nextRead = true;
+                    return true;
+                } catch (EOFException e) {
+                    throw new UncheckedIOException(new IOException("Object stream is truncated.", e));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                T result = this.next;
+                this.next = null;
+                this.nextRead = false;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * @return lazy sequential stream over all objects, can be called once. Closing the stream closes this reader.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.inputStream.close();
+    }
+
+    private int readMarker() throws IOException {
+        return this.objectInputStream != null ? this.objectInputStream.readByte() : this.dataInputStream.readByte();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T readElement() throws IOException {
+        if (this.objectInputStream == null) return this.codec.decode(this.dataInputStream);
+        try {
+            return (T) this.objectInputStream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Class not found: " + e.getMessage(), e);
+        }
+    }
+
+}
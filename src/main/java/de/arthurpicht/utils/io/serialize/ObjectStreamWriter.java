@@ -0,0 +1,151 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.*;
+import java.nio.file.Path;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Writes a sequence of objects to a file one at a time, so that a large collection never needs to be held in
+ * memory as one object graph. Read by {@link ObjectStreamReader}.
+ * <br>
+ * With java serialization, all objects are written to one object stream, whose handle table is reset after
+ * each {@link SerializerOptions#getResetInterval()} objects, so that memory use stays bounded. Objects written
+ * in different reset intervals do not share references. With other codecs, each object is encoded separately.
+ * <br>
+ * The file is complete only after {@link #close()}. With atomic write configured, the file is not replaced
+ * before.
+ * <br>
+ * Example:
+ * <pre>
+ *     try (ObjectStreamWriter&lt;Entry&gt; writer = new ObjectStreamWriter&lt;&gt;(file, options)) {
+ *         for (Entry entry : entries) writer.write(entry);
+ *     }
+ * </pre>
+ *
+ * @param <T> type of written objects
+ */
+public class ObjectStreamWriter<T> implements Closeable {
+
+    private static final int ELEMENT = 1;
+    private static final int END = 0;
+
+    private final SerializerOutput serializerOutput;
+    private final ObjectCodec<T> codec;
+    private final int resetInterval;
+    private final ObjectOutputStream objectOutputStream;
+    private final DataOutputStream dataOutputStream;
+
+    private long count = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a writer using java serialization.
+     *
+     * @param file destination file
+     * @param options buffering, compression, atomic write and reset interval options
+     * @throws IOException on error when opening file
+     */
+    public ObjectStreamWriter(Path file, SerializerOptions options) throws IOException {
+        this(file, options, new JavaSerializationCodec<>());
+    }
+
+    /**
+     * @param file destination file
+     * @param options buffering, compression, atomic write and reset interval options
+     * @param codec codec for objects
+     * @throws IOException on error when opening file
+     */
+    public ObjectStreamWriter(Path file, SerializerOptions options, ObjectCodec<T> codec) throws IOException {
+        assertArgumentNotNull("file", file);
+        assertArgumentNotNull("options", options);
+        assertArgumentNotNull("codec", codec);
+        this.codec = codec;
+        this.resetInterval = options.getResetInterval();
+        this.serializerOutput = SerializerOutput.open(file, options);
+        try {
+            if (codec instanceof JavaSerializationCodec) {
+                this.objectOutputStream = new ObjectOutputStream(this.serializerOutput.getOutputStream());
+                this.dataOutputStream = null;
+            } else {
+                this.objectOutputStream = null;
+                this.dataOutputStream = new DataOutputStream(this.serializerOutput.getOutputStream());
+            }
+        } catch (IOException | RuntimeException e) {
+            this.serializerOutput.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes specified object. On error, the writer is aborted: with atomic write, the destination file is left
+     * untouched.
+     *
+     * @param object object to be written
+     * @throws IOException on error when writing
+     */
+    public void write(T object) throws IOException {
+        if (this.closed) throw new IOException("Writer closed.");
+        try {
+            if (this.objectOutputStream != null) {
+                this.objectOutputStream.writeByte(ELEMENT);
+                this.objectOutputStream.writeObject(object);
+                if ((this.count + 1) % this.resetInterval == 0) this.objectOutputStream.reset();
+            } else {
+                this.dataOutputStream.writeByte(ELEMENT);
+                this.codec.encode(object, this.dataOutputStream);
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            abort();
+            throw e;
+        }
+        this.count++;
+    }
+
+    /**
+     * Writes all objects of specified iterable.
+     */
+    public void writeAll(Iterable<? extends T> objects) throws IOException {
+        assertArgumentNotNull("objects", objects);
+        for (T object : objects) write(object);
+    }
+
+    /**
+     * @return number of objects written so far
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Discards this writer. With atomic write, the destination file is left untouched.
+     */
+    public void abort() {
+        if (this.closed) return;
+        this.closed = true;
+        this.serializerOutput.abort();
+    }
+
+    /**
+     * Writes end marker and completes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        try {
+            if (this.objectOutputStream != null) {
+                this.objectOutputStream.writeByte(END);
+                this.objectOutputStream.flush();
+            } else {
+                this.dataOutputStream.writeByte(END);
+                this.dataOutputStream.flush();
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            this.serializerOutput.abort();
+            throw e;
+        }
+        this.serializerOutput.commit();
+    }
+
+}
@@ -0,0 +1,399 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Compact binary codec for records, based on {@link DataOutput} and {@link DataInput}. Record components are
+ * written in declaration order without names or type information. Integral values are written as variable
+ * length integers. The field layout of each record class is computed once and cached.
+ * <br>
+ * Supported component types are primitives and their wrapper classes, {@link String}, enums, byte arrays and
+ * records whose components are supported in turn. Values of reference types may be null. Other component types,
+ * including those of nested records, are rejected on codec creation. Records may refer to their own type.
+ * <br>
+ * As no type information is written, data can only be decoded by a codec of the same record class in the same
+ * version. Renaming components is compatible, adding, removing, reordering or retyping components is not.
+ * <br>
+ * Example:
+ * <pre>
+ *     record Point(int x, int y, String label) {}
+ *     RecordCodec&lt;Point&gt; codec = RecordCodec.of(Point.class);
+ * </pre>
+ *
+ * @param <T> record type
+ */
+public class RecordCodec<T extends Record> implements ObjectCodec<T> {
+
+    private static final ClassValue<RecordCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected RecordCodec<?> computeValue(Class<?> type) {
+            return new RecordCodec<>(type.asSubclass(Record.class));
+        }
+    };
+
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    // record classes whose codecs are being created by the current thread
+    private static final ThreadLocal<Set<Class<?>>> CREATING = ThreadLocal.withInitial(HashSet::new);
+
+    private interface FieldCodec {
+        void write(DataOutput out, Object value) throws IOException;
+
+        Object read(DataInput in) throws IOException;
+    }
+
+    private final Class<T> recordClass;
+    private final MethodHandle[] accessors;
+    private final FieldCodec[] fieldCodecs;
+    private final MethodHandle constructor;
+
+    /**
+     * Returns the codec of specified record class.
+     *
+     * @param recordClass record class
+     * @return codec
+     * @throws IllegalArgumentException if a record component is of an unsupported type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Record> RecordCodec<T> of(Class<T> recordClass) {
+        assertArgumentNotNull("recordClass", recordClass);
+        return (RecordCodec<T>) CODECS.get(recordClass);
+    }
+
+    private RecordCodec(Class<T> recordClass) {
+        this.recordClass = recordClass;
+        RecordComponent[] components = recordClass.getRecordComponents();
+        if (components == null)
+            throw new IllegalArgumentException("Not a record class: [" + recordClass.getName() + "].");
+
+        this.accessors = new MethodHandle[components.length];
+        this.fieldCodecs = new FieldCodec[components.length];
+        Class<?>[] componentTypes = new Class<?>[components.length];
+        CREATING.get().add(recordClass);
+        try {
+            for (int i = 0; i < components.length; i++) {
+                componentTypes[i] = components[i].getType();
+                this.fieldCodecs[i] = createFieldCodec(componentTypes[i], recordClass, components[i].getName());
+                components[i].getAccessor().setAccessible(true);
+                this.accessors[i] = MethodHandles.lookup().unreflect(components[i].getAccessor())
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            }
+            Constructor<T> canonicalConstructor = recordClass.getDeclaredConstructor(componentTypes);
+            canonicalConstructor.setAccessible(true);
+            this.constructor = MethodHandles.lookup().unreflectConstructor(canonicalConstructor)
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (e instanceof IllegalArgumentException illegalArgumentException) throw illegalArgumentException;
+            throw new IllegalArgumentException("Record class not accessible: [" + recordClass.getName() + "]. "
+                    + e.getMessage(), e);
+        } finally {
+            CREATING.get().remove(recordClass);
+        }
+    }
+
+    @Override
+    public void encode(T object, OutputStream outputStream) throws IOException {
+        assertArgumentNotNull("object", object);
+        write(outputStream instanceof DataOutput dataOutput ? dataOutput : new DataOutputStream(outputStream), object);
+    }
+
+    @Override
+    public T decode(InputStream inputStream) throws IOException {
+        return read(inputStream instanceof DataInput dataInput ? dataInput : new DataInputStream(inputStream));
+    }
+
+    /**
+     * Writes all components of specified record.
+     */
+    public void write(DataOutput out, T object) throws IOException {
+        for (int i = 0; i < this.fieldCodecs.length; i++) {
+            Object value;
+            try {
+                value = this.accessors[i].invokeExact((Object) object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+            this.fieldCodecs[i].write(out, value);
+        }
+    }
+
+    /**
+     * Reads all components of a record and creates the record by its canonical constructor.
+     */
+    public T read(DataInput in) throws IOException {
+        Object[] values = new Object[this.fieldCodecs.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.fieldCodecs[i].read(in);
+        }
+        try {
+            return this.recordClass.cast(this.constructor.invokeExact(values));
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid data for record [" + this.recordClass.getName() + "]: " + e.getMessage(), e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException(e);
+        }
+    }
+
+    public Class<T> getRecordClass() {
+        return this.recordClass;
+    }
+
+    private static FieldCodec createFieldCodec(Class<?> type, Class<?> recordClass, String componentName) {
+        if (type.isPrimitive()) {
+            for (PrimitiveCodec primitiveCodec : PrimitiveCodec.values()) {
+                if (primitiveCodec.type == type) return primitiveCodec;
+            }
+        }
+
+        if (type == Boolean.class || type == Byte.class || type == Short.class || type == Character.class
+                || type == Integer.class || type == Long.class || type == Float.class || type == Double.class) {
+            return nullable(createFieldCodec(MethodType.methodType(type).unwrap().returnType(), recordClass, componentName));
+        }
+
+        if (type == String.class) return new FieldCodec() {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                writeBytes(out, value == null ? null : ((String) value).getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                byte[] bytes = readBytes(in);
+                return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+
+        if (type == byte[].class) return new FieldCodec() {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                writeBytes(out, (byte[]) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return readBytes(in);
+            }
+        };
+
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return new FieldCodec() {
+                @Override
+                public void write(DataOutput out, Object value) throws IOException {
+                    Varints.writeUnsignedInt(out, value == null ? 0 : ((Enum<?>) value).ordinal() + 1);
+                }
+
+                @Override
+                public Object read(DataInput in) throws IOException {
+                    int ordinal = Varints.readUnsignedInt(in) - 1;
+                    if (ordinal == -1) return null;
+                    if (ordinal < 0 || ordinal >= constants.length)
+                        throw new IOException("Invalid ordinal of enum [" + type.getName() + "]: " + ordinal + ".");
+                    return constants[ordinal];
+                }
+            };
+        }
+
+        if (type.isRecord()) {
+            if (CREATING.get().contains(type)) {
+                // resolved lazily, so that records may refer to their own type
+                return nullable(new FieldCodec() {
+                    @Override
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    public void write(DataOutput out, Object value) throws IOException {
+                        ((RecordCodec) CODECS.get(type)).write(out, (Record) value);
+                    }
+
+                    @Override
+                    public Object read(DataInput in) throws IOException {
+                        return CODECS.get(type).read(in);
+                    }
+                });
+            }
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            RecordCodec<Record> recordCodec = (RecordCodec) CODECS.get(type);
+            return nullable(new FieldCodec() {
+                @Override
+                public void write(DataOutput out, Object value) throws IOException {
+                    recordCodec.write(out, (Record) value);
+                }
+
+                @Override
+                public Object read(DataInput in) throws IOException {
+                    return recordCodec.read(in);
+                }
+            });
+        }
+
+        throw new IllegalArgumentException("Unsupported type of record component [" + recordClass.getName()
+                + "." + componentName + "]: [" + type.getName() + "].");
+    }
+
+    private enum PrimitiveCodec implements FieldCodec {
+
+        BOOLEAN(boolean.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                out.writeBoolean((Boolean) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return in.readBoolean();
+            }
+        },
+
+        BYTE(byte.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                out.writeByte((Byte) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return in.readByte();
+            }
+        },
+
+        SHORT(short.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                Varints.writeLong(out, (Short) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return (short) readLong(in, Short.MIN_VALUE, Short.MAX_VALUE, "short");
+            }
+        },
+
+        CHAR(char.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                out.writeChar((Character) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return in.readChar();
+            }
+        },
+
+        INT(int.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                Varints.writeLong(out, (Integer) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return (int) readLong(in, Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
+            }
+        },
+
+        LONG(long.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                Varints.writeLong(out, (Long) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return Varints.readLong(in);
+            }
+        },
+
+        FLOAT(float.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                out.writeFloat((Float) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return in.readFloat();
+            }
+        },
+
+        DOUBLE(double.class) {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                out.writeDouble((Double) value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return in.readDouble();
+            }
+        };
+
+        private final Class<?> type;
+
+        PrimitiveCodec(Class<?> type) {
+            this.type = type;
+        }
+    }
+
+    private static FieldCodec nullable(FieldCodec fieldCodec) {
+        return new FieldCodec() {
+            @Override
+            public void write(DataOutput out, Object value) throws IOException {
+                out.writeBoolean(value != null);
+                if (value != null) fieldCodec.write(out, value);
+            }
+
+            @Override
+            public Object read(DataInput in) throws IOException {
+                return in.readBoolean() ? fieldCodec.read(in) : null;
+            }
+        };
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            Varints.writeUnsignedInt(out, 0);
+        } else {
+            Varints.writeUnsignedInt(out, bytes.length + 1);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        int length = Varints.readUnsignedInt(in) - 1;
+        if (length == -1) return null;
+        if (length < 0) throw new IOException("Invalid length: " + Integer.toUnsignedString(length) + ".");
+
+        // allocate as bytes arrive, so that a corrupt length fails at end of input instead of exhausting memory
+        byte[] bytes = new byte[Math.min(length, READ_CHUNK_SIZE)];
+        int position = 0;
+        while (true) {
+            in.readFully(bytes, position, bytes.length - position);
+            position = bytes.length;
+            if (position == length) return bytes;
+            bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * position));
+        }
+    }
+
+    private static long readLong(DataInput in, long min, long max, String typeName) throws IOException {
+        long value = Varints.readLong(in);
+        if (value < min || value > max) throw new IOException("Invalid " + typeName + " value: " + value + ".");
+        return value;
+    }
+
+}
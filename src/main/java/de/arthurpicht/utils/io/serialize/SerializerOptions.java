@@ -0,0 +1,164 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.ObjectInputFilter;
+import java.util.zip.Deflater;
+
+/**
+ * Options for {@link GenericObjectSerializer}. Options are configured by using enclosed {@link Builder} class.
+ * <br>
+ * Example:
+ * <pre>
+ *     SerializerOptions options = new SerializerOptions.Builder()
+ *             .withCompression(SerializerOptions.Compression.GZIP)
+ *             .withAtomicWrite()
+ *             .build();
+ * </pre>
+ */
+public class SerializerOptions {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_RESET_INTERVAL = 1024;
+
+    public enum Compression {
+
+        NONE,
+
+        /**
+         * GZIP format, readable by common tools.
+         */
+        GZIP,
+
+        /**
+         * zlib format as written by {@link Deflater}. Slightly smaller header than GZIP.
+         */
+        DEFLATE
+    }
+
+    private final int bufferSize;
+    private final Compression compression;
+    private final int compressionLevel;
+    private final boolean atomicWrite;
+    private final int resetInterval;
+    private final ObjectInputFilter inputFilter;
+
+    public static class Builder {
+
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private Compression compression = Compression.NONE;
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        private boolean atomicWrite = false;
+        private int resetInterval = DEFAULT_RESET_INTERVAL;
+        private ObjectInputFilter inputFilter = null;
+
+        /**
+         * Size of read and write buffers. Default: {@link #DEFAULT_BUFFER_SIZE}.
+         */
+        public Builder withBufferSize(int bufferSize) {
+            if (bufferSize <= 0) throw new IllegalArgumentException("bufferSize must be greater than 0");
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Compression of written files. Compression of read files is detected automatically.
+         * Default: {@link Compression#NONE}.
+         */
+        public Builder withCompression(Compression compression) {
+            if (compression == null) throw new IllegalArgumentException("compression must not be null");
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Compression level from 0 to 9, see {@link Deflater}. Default: {@link Deflater#DEFAULT_COMPRESSION}.
+         */
+        public Builder withCompressionLevel(int compressionLevel) {
+            if ((compressionLevel < 0 || compressionLevel > 9) && compressionLevel != Deflater.DEFAULT_COMPRESSION)
+                throw new IllegalArgumentException("compressionLevel must be between 0 and 9");
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Files are written to a temporary file in the same directory, forced to storage device and renamed to
+         * the destination file, atomically if supported by the file system. So readers never see a partially
+         * written file. Default: files are written in place.
+         */
+        public Builder withAtomicWrite() {
+            this.atomicWrite = true;
+            return this;
+        }
+
+        /**
+         * Number of objects after which {@link ObjectStreamWriter} resets the handle table of java serialization
+         * streams. Smaller values bound memory use, larger values allow more back references between objects.
+         * Default: {@link #DEFAULT_RESET_INTERVAL}.
+         */
+        public Builder withResetInterval(int resetInterval) {
+            if (resetInterval <= 0) throw new IllegalArgumentException("resetInterval must be greater than 0");
+            this.resetInterval = resetInterval;
+            return this;
+        }
+
+        /**
+         * Filter applied when reading by java serialization, e.g. a {@link DeserializationFilter}. A JVM-wide
+         * filter, if configured, is applied additionally. Default: only the JVM-wide filter is applied.
+         */
+        public Builder withInputFilter(ObjectInputFilter inputFilter) {
+            if (inputFilter == null) throw new IllegalArgumentException("inputFilter must not be null");
+            this.inputFilter = inputFilter;
+            return this;
+        }
+
+        public SerializerOptions build() {
+            return new SerializerOptions(this.bufferSize, this.compression, this.compressionLevel,
+                    this.atomicWrite, this.resetInterval, this.inputFilter);
+        }
+
+    }
+
+    private SerializerOptions(int bufferSize, Compression compression, int compressionLevel, boolean atomicWrite,
+                              int resetInterval, ObjectInputFilter inputFilter) {
+        this.bufferSize = bufferSize;
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+        this.atomicWrite = atomicWrite;
+        this.resetInterval = resetInterval;
+        this.inputFilter = inputFilter;
+    }
+
+    /**
+     * Creates default options: buffered, no compression, written in place.
+     */
+    public static SerializerOptions defaults() {
+        return new Builder().build();
+    }
+
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    public Compression getCompression() {
+        return this.compression;
+    }
+
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
+    public boolean isAtomicWrite() {
+        return this.atomicWrite;
+    }
+
+    public int getResetInterval() {
+        return this.resetInterval;
+    }
+
+    /**
+     * @return filter for reading by java serialization or null if not configured
+     */
+    public ObjectInputFilter getInputFilter() {
+        return this.inputFilter;
+    }
+
+}
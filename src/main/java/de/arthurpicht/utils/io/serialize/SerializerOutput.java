@@ -0,0 +1,131 @@
+package de.arthurpicht.utils.io.serialize;
+
+import de.arthurpicht.utils.io.nio2.FileUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Output to a serialization file through a buffered and, if configured, compressing stream. If atomic write is
+ * configured, a temporary file in the same directory is written, which on commit is forced to storage device and
+ * moved to the destination file. On abort, the temporary file is deleted and the destination file is left
+ * untouched.
+ */
+class SerializerOutput {
+
+    private final Path file;
+    private final Path tempFile;
+    private final FileChannel fileChannel;
+    private final OutputStream outputStream;
+
+    private SerializerOutput(Path file, Path tempFile, FileChannel fileChannel, OutputStream outputStream) {
+        this.file = file;
+        this.tempFile = tempFile;
+        this.fileChannel = fileChannel;
+        this.outputStream = outputStream;
+    }
+
+    interface BeforeMove {
+        void run() throws IOException;
+    }
+
+    static SerializerOutput open(Path file, SerializerOptions options) throws IOException {
+        return open(file, options, options.isAtomicWrite());
+    }
+
+    static SerializerOutput open(Path file, SerializerOptions options, boolean atomicWrite) throws IOException {
+        if (!atomicWrite) {
+            OutputStream outputStream = GenericObjectSerializer.newOutputStream(Files.newOutputStream(file), options);
+            return new SerializerOutput(file, null, null, outputStream);
+        }
+
+        Path tempFile = FileUtils.createTempFileForReplacement(file, "." + file.getFileName() + "-");
+        FileChannel fileChannel = null;
+        try {
+            fileChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+            OutputStream outputStream = GenericObjectSerializer.newOutputStream(
+                    new NonClosingOutputStream(Channels.newOutputStream(fileChannel)), options);
+            return new SerializerOutput(file, tempFile, fileChannel, outputStream);
+        } catch (IOException | RuntimeException e) {
+            if (fileChannel != null) fileChannel.close();
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    OutputStream getOutputStream() {
+        return this.outputStream;
+    }
+
+    /**
+     * Finishes writing. Closes stream and, for atomic write, moves temporary file to destination file.
+     */
+    void commit() throws IOException {
+        commit(() -> {});
+    }
+
+    /**
+     * Finishes writing like {@link #commit()}. For atomic write, specified action is run after the temporary file
+     * is completely written and before it is moved to the destination file.
+     */
+    void commit(BeforeMove beforeMove) throws IOException {
+        if (this.tempFile == null) {
+            this.outputStream.close();
+            return;
+        }
+        try {
+            try (FileChannel fileChannel = this.fileChannel) {
+                this.outputStream.close();
+                fileChannel.force(true);
+            }
+            beforeMove.run();
+            try {
+                Files.move(this.tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(this.tempFile, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(this.tempFile);
+        }
+    }
+
+    /**
+     * Closes stream silently and, for atomic write, deletes temporary file.
+     */
+    void abort() {
+        try {
+            this.outputStream.close();
+        } catch (IOException | RuntimeException e) {
+            // din
+        }
+        if (this.tempFile == null) return;
+        try {
+            this.fileChannel.close();
+            Files.deleteIfExists(this.tempFile);
+        } catch (IOException e) {
+            // din
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
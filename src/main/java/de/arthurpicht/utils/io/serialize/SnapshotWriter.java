@@ -0,0 +1,305 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Writes snapshots of objects to files in the background. Snapshot requests return immediately with a
+ * {@link CompletableFuture}, which completes when the snapshot is written.
+ * <br>
+ * Requests for the same file are coalesced: while a snapshot of a file is being written, only the latest of all
+ * further requests for this file is kept and written afterwards. Coalesced requests share the future of the
+ * snapshot actually written. Snapshots of different files are written concurrently, as far as the executor
+ * allows.
+ * <br>
+ * Snapshots are always written atomically. Previous snapshots are kept as rotated generations: with
+ * generations = 3, the files are 'file' (latest), 'file.1' and 'file.2' (oldest). See
+ * {@link #readLatest(Path, int, SerializerOptions, ObjectCodec)} for recovery.
+ * <br>
+ * Objects are written by reference, after {@link #snapshot(Object, Path)} has returned. So passed objects must
+ * not be modified afterwards, e.g. by passing an immutable copy of the state.
+ * <br>
+ * Example:
+ * <pre>
+ *     SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 3);
+ *     snapshotWriter.snapshot(List.copyOf(state), stateFile);
+ *     ...
+ *     snapshotWriter.close();
+ * </pre>
+ */
+public class SnapshotWriter implements Closeable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static class PendingSnapshot {
+        private Object object;
+        private ObjectCodec<Object> codec;
+        private final CompletableFuture<Path> future = new CompletableFuture<>();
+    }
+
+    private static class FileState {
+        private PendingSnapshot pending;
+        private PendingSnapshot running;
+    }
+
+    private final SerializerOptions options;
+    private final int generations;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final Map<Path, FileState> fileStates = new HashMap<>();
+
+    private boolean closed = false;
+    private long writtenCount = 0;
+    private long coalescedCount = 0;
+    private long failedCount = 0;
+
+    /**
+     * Creates a snapshot writer with an own background thread.
+     *
+     * @param options buffering and compression options, snapshots are written atomically in any case
+     * @param generations number of snapshot files kept per file, including the latest one
+     */
+    public SnapshotWriter(SerializerOptions options, int generations) {
+        this(options, generations, null);
+    }
+
+    /**
+     * Creates a snapshot writer writing snapshots on specified executor, e.g. one creating a virtual thread per
+     * task. The executor is not shut down on {@link #close()}.
+     *
+     * @param options buffering and compression options, snapshots are written atomically in any case
+     * @param generations number of snapshot files kept per file, including the latest one
+     * @param executor executor for writing snapshots
+     */
+    public SnapshotWriter(SerializerOptions options, int generations, Executor executor) {
+        assertArgumentNotNull("options", options);
+        if (generations <= 0) throw new IllegalArgumentException("generations must be greater than 0");
+        this.options = options;
+        this.generations = generations;
+        if (executor == null) {
+            String threadName = "snapshot-writer-" + THREAD_COUNT.incrementAndGet();
+            this.ownedExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = this.ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Requests a snapshot of specified object by java serialization.
+     *
+     * @see #snapshot(Object, Path, ObjectCodec)
+     */
+    public <T> CompletableFuture<Path> snapshot(T object, Path file) {
+        return snapshot(object, file, new JavaSerializationCodec<>());
+    }
+
+    /**
+     * Requests a snapshot of specified object to specified file.
+     *
+     * @param object object to be written, must not be modified afterwards
+     * @param file snapshot file
+     * @param codec codec for object
+     * @return future completing with the snapshot file when written, or exceptionally with
+     *         {@link SerializerException}
+     * @throws IllegalStateException if this snapshot writer is closed
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<Path> snapshot(T object, Path file, ObjectCodec<T> codec) {
+        assertArgumentNotNull("file", file);
+        assertArgumentNotNull("codec", codec);
+        Path key = file.toAbsolutePath().normalize();
+
+        CompletableFuture<Path> future;
+        PendingSnapshot snapshotToRun = null;
+        synchronized (this) {
+            if (this.closed) throw new IllegalStateException("SnapshotWriter closed.");
+            FileState fileState = this.fileStates.computeIfAbsent(key, path -> new FileState());
+            if (fileState.pending != null) {
+                this.coalescedCount++;
+            } else {
+                fileState.pending = new PendingSnapshot();
+            }
+            fileState.pending.object = object;
+            fileState.pending.codec = (ObjectCodec<Object>) codec;
+            future = fileState.pending.future;
+
+            if (fileState.running == null) {
+                fileState.running = fileState.pending;
+                fileState.pending = null;
+                snapshotToRun = fileState.running;
+            }
+        }
+        if (snapshotToRun != null) submit(key, snapshotToRun);
+        return future.thenApply(path -> file);
+    }
+
+    private void submit(Path file, PendingSnapshot snapshot) {
+        try {
+            this.executor.execute(() -> run(file, snapshot));
+        } catch (RejectedExecutionException e) {
+            snapshot.future.completeExceptionally(new SerializerException("Snapshot rejected by executor.", e));
+            next(file);
+        }
+    }
+
+    private void run(Path file, PendingSnapshot snapshot) {
+        try {
+            write(file, snapshot);
+            synchronized (this) {
+                this.writtenCount++;
+            }
+            snapshot.future.complete(file);
+        } catch (Throwable e) {
+            // errors as well, e.g. StackOverflowError on deep object graphs, are reported by the future
+            synchronized (this) {
+                this.failedCount++;
+            }
+            snapshot.future.completeExceptionally(new SerializerException(e));
+        } finally {
+            next(file);
+        }
+    }
+
+    private void next(Path file) {
+        PendingSnapshot snapshotToRun;
+        synchronized (this) {
+            FileState fileState = this.fileStates.get(file);
+            fileState.running = fileState.pending;
+            fileState.pending = null;
+            snapshotToRun = fileState.running;
+            if (snapshotToRun == null) {
+                this.fileStates.remove(file);
+                notifyAll();
+                return;
+            }
+        }
+        submit(file, snapshotToRun);
+    }
+
+    private void write(Path file, PendingSnapshot snapshot) throws IOException {
+        SerializerOutput serializerOutput = SerializerOutput.open(file, this.options, true);
+        try {
+            OutputStream outputStream = serializerOutput.getOutputStream();
+            snapshot.codec.encode(snapshot.object, outputStream);
+        } catch (IOException | RuntimeException | Error e) {
+            serializerOutput.abort();
+            throw e;
+        }
+        serializerOutput.commit(() -> rotate(file));
+    }
+
+    private void rotate(Path file) throws IOException {
+        if (this.generations == 1) return;
+        Files.deleteIfExists(getGenerationFile(file, this.generations - 1));
+        for (int generation = this.generations - 2; generation >= 0; generation--) {
+            Path source = getGenerationFile(file, generation);
+            if (Files.exists(source))
+                Files.move(source, getGenerationFile(file, generation + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the file of specified snapshot generation.
+     *
+     * @param file snapshot file
+     * @param generation 0 for latest snapshot, 1 for the one before and so on
+     * @return file of generation
+     */
+    public static Path getGenerationFile(Path file, int generation) {
+        assertArgumentNotNull("file", file);
+        if (generation < 0) throw new IllegalArgumentException("generation must not be negative");
+        return generation == 0 ? file : file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    /**
+     * Reads the latest readable snapshot generation of specified file. Generations that are missing or cannot be
+     * read are skipped.
+     *
+     * @param file snapshot file
+     * @param generations number of generations kept
+     * @param options buffering and compression options
+     * @param codec codec as used for writing
+     * @return latest readable snapshot
+     * @throws SerializerException if no generation is readable
+     */
+    public static <T> T readLatest(Path file, int generations, SerializerOptions options, ObjectCodec<T> codec) throws SerializerException {
+        assertArgumentNotNull("file", file);
+        List<SerializerException> exceptions = new ArrayList<>();
+        for (int generation = 0; generation < generations; generation++) {
+            Path generationFile = getGenerationFile(file, generation);
+            if (!Files.exists(generationFile)) continue;
+            try {
+                return GenericObjectSerializer.deserialize(generationFile, options, codec);
+            } catch (SerializerException e) {
+                exceptions.add(e);
+            }
+        }
+        SerializerException serializerException = new SerializerException(
+                "No readable snapshot generation of [" + file.toAbsolutePath() + "].");
+        exceptions.forEach(serializerException::addSuppressed);
+        throw serializerException;
+    }
+
+    /**
+     * Waits until all requested snapshots are written.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (!this.fileStates.isEmpty()) wait();
+    }
+
+    /**
+     * Rejects further requests, waits until all requested snapshots are written and shuts down the own
+     * background thread, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) return;
+            this.closed = true;
+        }
+        try {
+            awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for snapshots.", e);
+        } finally {
+            if (this.ownedExecutor != null) this.ownedExecutor.shutdown();
+        }
+    }
+
+    public synchronized long getWrittenCount() {
+        return this.writtenCount;
+    }
+
+    /**
+     * @return number of requests merged into a later request for the same file
+     */
+    public synchronized long getCoalescedCount() {
+        return this.coalescedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return this.failedCount;
+    }
+
+}
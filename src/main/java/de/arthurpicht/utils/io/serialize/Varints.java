@@ -0,0 +1,53 @@
+package de.arthurpicht.utils.io.serialize;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Variable length encoding of integers, 7 bits per byte, least significant group first. Signed values are zigzag
+ * encoded, so that small negative values are encoded by few bytes as well.
+ */
+class Varints {
+
+    private Varints() {
+    }
+
+    static void writeUnsignedLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readUnsignedLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Malformed varint.");
+    }
+
+    static void writeLong(DataOutput out, long value) throws IOException {
+        writeUnsignedLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readLong(DataInput in) throws IOException {
+        long value = readUnsignedLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeUnsignedInt(DataOutput out, int value) throws IOException {
+        writeUnsignedLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int readUnsignedInt(DataInput in) throws IOException {
+        long value = readUnsignedLong(in);
+        if (value > 0xFFFFFFFFL) throw new IOException("Malformed varint.");
+        return (int) value;
+    }
+
+}
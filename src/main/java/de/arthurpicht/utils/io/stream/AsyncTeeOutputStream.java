@@ -0,0 +1,422 @@
+package de.arthurpicht.utils.io.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Tee operations to two or more OutputStreams asynchronously, so that a slow sink does not stall the writer.
+ * Configured by using enclosed {@link Builder} class.
+ * <br>
+ * Written bytes are collected in buffers of a fixed size, taken from a pool. Full buffers are shared by all sinks
+ * without copying and passed to a bounded queue per sink, which is drained by a thread per sink. Buffers are
+ * returned to the pool when written to all sinks. If the queue of a sink is full, the configured
+ * {@link OverflowPolicy} applies to this sink only.
+ * <br>
+ * Sinks are isolated from each other: if writing to a sink fails, the sink is excluded from further writes, while
+ * all other sinks are still written. Failures are reported by {@link #getFailure(int)} and thrown on
+ * {@link #flush()} and {@link #close()}. {@link #flush()} passes buffered bytes to all sinks and waits until they
+ * are written and flushed. With {@link OverflowPolicy#DROP} or {@link OverflowPolicy#FAIL}, the policy applies to
+ * the flush of a sink with a full queue as well, instead of waiting for it. {@link #close()} passes buffered bytes
+ * to all sinks and waits until they are written and all sinks are closed, whatever the policy.
+ * <br>
+ * Example:
+ * <pre>
+ *     AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(List.of(fileStream, socketStream))
+ *             .withOverflowPolicy(AsyncTeeOutputStream.OverflowPolicy.DROP)
+ *             .build();
+ * </pre>
+ */
+public class AsyncTeeOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    public enum OverflowPolicy {
+
+        /**
+         * The writer waits until the sink has taken a buffer from its queue.
+         */
+        BLOCK,
+
+        /**
+         * The buffer is not passed to the sink. The number of dropped bytes is reported by
+         * {@link #getDroppedBytes(int)}.
+         */
+        DROP,
+
+        /**
+         * The sink fails and is excluded from further writes. The write call throws an {@link IOException} after
+         * the buffer is passed to all other sinks.
+         */
+        FAIL
+    }
+
+    public static class Builder {
+
+        private final List<OutputStream> outs;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private ThreadFactory threadFactory = Thread.ofVirtual().name("async-tee-drainer-", 0).factory();
+
+        /**
+         * @param outs streams to be written to
+         */
+        public Builder(List<? extends OutputStream> outs) {
+            assertArgumentNotNull("outs", outs);
+            this.outs = List.copyOf(outs);
+        }
+
+        /**
+         * Size of pooled buffers. Default: {@link #DEFAULT_BUFFER_SIZE}.
+         */
+        public Builder withBufferSize(int bufferSize) {
+            if (bufferSize <= 0) throw new IllegalArgumentException("bufferSize must be greater than 0");
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Maximum number of buffers queued per sink. Default: {@link #DEFAULT_QUEUE_CAPACITY}.
+         */
+        public Builder withQueueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity must be greater than 0");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Policy on full sink queues. Default: {@link OverflowPolicy#BLOCK}.
+         */
+        public Builder withOverflowPolicy(OverflowPolicy overflowPolicy) {
+            if (overflowPolicy == null) throw new IllegalArgumentException("overflowPolicy must not be null");
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Factory for draining threads, one per sink. Default: virtual threads.
+         */
+        public Builder withThreadFactory(ThreadFactory threadFactory) {
+            if (threadFactory == null) throw new IllegalArgumentException("threadFactory must not be null");
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        public AsyncTeeOutputStream build() {
+            return new AsyncTeeOutputStream(this);
+        }
+
+    }
+
+    private static class Chunk {
+        private final byte[] data;
+        private int length;
+        private final AtomicInteger references = new AtomicInteger();
+        private final CountDownLatch done;
+        private final boolean close;
+
+        private Chunk(byte[] data) {
+            this.data = data;
+            this.done = null;
+            this.close = false;
+        }
+
+        // marker for flush or close
+        private Chunk(boolean close) {
+            this.data = null;
+            this.done = new CountDownLatch(1);
+            this.close = close;
+        }
+    }
+
+    private class Sink implements Runnable {
+        private final OutputStream out;
+        private final BlockingQueue<Chunk> queue;
+        private final Thread thread;
+        private final AtomicLong droppedBytes = new AtomicLong();
+        private volatile IOException failure = null;
+
+        private Sink(OutputStream out, int queueCapacity, ThreadFactory threadFactory) {
+            this.out = out;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = threadFactory.newThread(this);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Chunk chunk;
+                try {
+                    chunk = this.queue.take();
+                } catch (InterruptedException e) {
+                    fail(new InterruptedIOException("Drainer thread interrupted."));
+                    return;
+                }
+                if (chunk.data != null) {
+                    if (this.failure == null) {
+                        try {
+                            this.out.write(chunk.data, 0, chunk.length);
+                        } catch (Throwable e) {
+                            fail(e);
+                        }
+                    }
+                    release(chunk);
+                } else {
+                    try {
+                        if (chunk.close) {
+                            this.out.close();
+                        } else if (this.failure == null) {
+                            this.out.flush();
+                        }
+                    } catch (Throwable e) {
+                        fail(e);
+                    }
+                    chunk.done.countDown();
+                    if (chunk.close) return;
+                }
+            }
+        }
+
+        private void fail(Throwable e) {
+            if (this.failure == null)
+                this.failure = e instanceof IOException ioException ? ioException : new IOException(e);
+        }
+    }
+
+    private final List<Sink> sinks;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<byte[]> pool;
+
+    private Chunk current = null;
+    private boolean closed = false;
+
+    private AsyncTeeOutputStream(Builder builder) {
+        this.bufferSize = builder.bufferSize;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.pool = new ArrayBlockingQueue<>(builder.queueCapacity + 2);
+        List<Sink> sinks = new ArrayList<>();
+        for (OutputStream out : builder.outs) {
+            sinks.add(new Sink(out, builder.queueCapacity, builder.threadFactory));
+        }
+        this.sinks = List.copyOf(sinks);
+        this.sinks.forEach(sink -> sink.thread.start());
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        assertOpen();
+        if (this.current == null) this.current = newChunk();
+        this.current.data[this.current.length++] = (byte) b;
+        if (this.current.length == this.bufferSize) dispatch();
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        assertOpen();
+        IOException exception = null;
+        while (len > 0) {
+            if (this.current == null) this.current = newChunk();
+            int copyLength = Math.min(len, this.bufferSize - this.current.length);
+            System.arraycopy(b, off, this.current.data, this.current.length, copyLength);
+            this.current.length += copyLength;
+            off += copyLength;
+            len -= copyLength;
+            if (this.current.length == this.bufferSize) {
+                try {
+                    dispatch();
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // remaining bytes are still passed to all sinks that did not fail
+                    if (exception == null) exception = e;
+                }
+            }
+        }
+        if (exception != null) throw exception;
+    }
+
+    /**
+     * Passes buffered bytes to all sinks and waits until they are written and flushed. With
+     * {@link OverflowPolicy#DROP}, sinks with a full queue are not flushed and not waited for. With
+     * {@link OverflowPolicy#FAIL}, they fail.
+     *
+     * @throws IOException if a sink failed
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        assertOpen();
+        if (this.current != null) dispatch();
+        awaitMarkers(passFlushMarkers());
+        throwFailures();
+    }
+
+    /**
+     * Passes buffered bytes to all sinks, waits until they are written and closes all sinks.
+     *
+     * @throws IOException if a sink failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+        // buffered bytes and close markers must reach all sinks, even if the calling thread is interrupted
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (this.current != null) dispatch();
+        } catch (IOException e) {
+            // din, reported by throwFailures
+        }
+        interrupted |= Thread.interrupted();
+        List<Chunk> markers = new ArrayList<>();
+        for (Sink sink : this.sinks) {
+            if (!sink.thread.isAlive()) continue;
+            Chunk marker = new Chunk(true);
+            interrupted |= putUninterruptibly(sink.queue, marker);
+            markers.add(marker);
+        }
+        this.closed = true;
+        if (interrupted) Thread.currentThread().interrupt();
+        awaitMarkers(markers);
+        throwFailures();
+    }
+
+    /**
+     * @param sink index of sink as specified on construction
+     * @return failure of specified sink or null if not failed
+     */
+    public IOException getFailure(int sink) {
+        return this.sinks.get(sink).failure;
+    }
+
+    /**
+     * @param sink index of sink as specified on construction
+     * @return number of bytes not passed to specified sink by {@link OverflowPolicy#DROP}
+     */
+    public long getDroppedBytes(int sink) {
+        return this.sinks.get(sink).droppedBytes.get();
+    }
+
+    private Chunk newChunk() {
+        byte[] data = this.pool.poll();
+        return new Chunk(data != null ? data : new byte[this.bufferSize]);
+    }
+
+    private void release(Chunk chunk) {
+        if (chunk.references.decrementAndGet() == 0) this.pool.offer(chunk.data);
+    }
+
+    private void dispatch() throws IOException {
+        Chunk chunk = this.current;
+        this.current = null;
+        chunk.references.set(this.sinks.size() + 1);
+        IOException overflow = null;
+        try {
+            for (Sink sink : this.sinks) {
+                if (sink.failure != null) {
+                    release(chunk);
+                } else if (this.overflowPolicy == OverflowPolicy.BLOCK) {
+                    put(sink.queue, chunk);
+                } else if (!sink.queue.offer(chunk)) {
+                    release(chunk);
+                    if (this.overflowPolicy == OverflowPolicy.DROP) {
+                        sink.droppedBytes.addAndGet(chunk.length);
+                    } else {
+                        IOException e = new IOException("Queue of sink " + this.sinks.indexOf(sink) + " full.");
+                        sink.fail(e);
+                        if (overflow == null) overflow = e;
+                    }
+                }
+            }
+        } finally {
+            release(chunk);
+        }
+        if (overflow != null) throw overflow;
+    }
+
+    /**
+     * Passes a flush marker to all sinks by the overflow policy.
+     *
+     * @return markers passed
+     */
+    private List<Chunk> passFlushMarkers() throws InterruptedIOException {
+        List<Chunk> markers = new ArrayList<>();
+        for (Sink sink : this.sinks) {
+            if (!sink.thread.isAlive()) continue;
+            Chunk marker = new Chunk(false);
+            if (this.overflowPolicy == OverflowPolicy.BLOCK) {
+                put(sink.queue, marker);
+            } else if (!sink.queue.offer(marker)) {
+                if (this.overflowPolicy == OverflowPolicy.FAIL)
+                    sink.fail(new IOException("Queue of sink " + this.sinks.indexOf(sink) + " full."));
+                continue;
+            }
+            markers.add(marker);
+        }
+        return markers;
+    }
+
+    private static void awaitMarkers(List<Chunk> markers) throws InterruptedIOException {
+        for (Chunk marker : markers) {
+            try {
+                marker.done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for sinks.");
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Chunk> queue, Chunk chunk) throws InterruptedIOException {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for sink queue.");
+        }
+    }
+
+    /**
+     * @return true if the calling thread was interrupted while waiting
+     */
+    private static boolean putUninterruptibly(BlockingQueue<Chunk> queue, Chunk chunk) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(chunk);
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    private void throwFailures() throws IOException {
+        IOException exception = null;
+        for (int i = 0; i < this.sinks.size(); i++) {
+            IOException failure = this.sinks.get(i).failure;
+            if (failure == null) continue;
+            if (exception == null) exception = new IOException("Writing to sink failed.");
+            exception.addSuppressed(failure);
+        }
+        if (exception != null) throw exception;
+    }
+
+    private void assertOpen() throws IOException {
+        if (this.closed) throw new IOException("Stream closed.");
+    }
+
+}
@@ -0,0 +1,115 @@
+package de.arthurpicht.utils.io.stream;
+
+import de.arthurpicht.utils.io.checksum.ChecksumAlgorithm;
+import de.arthurpicht.utils.io.checksum.MultiHasher;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Computes checksums of all bytes read through this stream by one or more checksum algorithms. Bulk reads update
+ * all checksums with the bytes read at once. Skipped bytes are read and included in the checksums. Mark and
+ * reset are not supported.
+ * <br>
+ * Example:
+ * <pre>
+ *     try (ChecksumInputStream inputStream = new ChecksumInputStream(
+ *             Files.newInputStream(file), StandardChecksumAlgorithm.SHA_256)) {
+ *         inputStream.transferTo(outputStream);
+ *         byte[] sha256 = inputStream.getValue(StandardChecksumAlgorithm.SHA_256);
+ *     }
+ * </pre>
+ */
+public class ChecksumInputStream extends FilterInputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+    private final MultiHasher multiHasher;
+    private final byte[] singleByte = new byte[1];
+
+    public ChecksumInputStream(InputStream in, ChecksumAlgorithm... algorithms) {
+        this(in, List.of(algorithms));
+    }
+
+    /**
+     * @param in stream to be read from
+     * @param algorithms checksum algorithms, at least one
+     */
+    public ChecksumInputStream(InputStream in, List<? extends ChecksumAlgorithm> algorithms) {
+        super(in);
+        assertArgumentNotNull("algorithms", algorithms);
+        if (algorithms.isEmpty()) throw new IllegalArgumentException("At least one checksum algorithm required.");
+        this.multiHasher = new MultiHasher(algorithms);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = this.in.read();
+        if (b >= 0) {
+            this.singleByte[0] = (byte) b;
+            this.multiHasher.update(this.singleByte, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int bytesRead = this.in.read(b, off, len);
+        if (bytesRead > 0) this.multiHasher.update(b, off, bytesRead);
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, Math.max(n, 0))];
+        long skipped = 0;
+        while (skipped < n) {
+            int bytesRead = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (bytesRead < 0) break;
+            skipped += bytesRead;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("Mark and reset not supported.");
+    }
+
+    /**
+     * @param algorithm one of the algorithms specified on construction
+     * @return checksum of all bytes read so far
+     */
+    public byte[] getValue(ChecksumAlgorithm algorithm) {
+        return this.multiHasher.getValue(algorithm);
+    }
+
+    /**
+     * @return checksums of all bytes read so far, by algorithm in order as specified on construction
+     */
+    public Map<ChecksumAlgorithm, byte[]> getValues() {
+        return this.multiHasher.getValues();
+    }
+
+    /**
+     * @return number of bytes read so far
+     */
+    public long getByteCount() {
+        return this.multiHasher.getByteCount();
+    }
+
+}
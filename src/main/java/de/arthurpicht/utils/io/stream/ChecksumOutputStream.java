@@ -0,0 +1,85 @@
+package de.arthurpicht.utils.io.stream;
+
+import de.arthurpicht.utils.io.checksum.ChecksumAlgorithm;
+import de.arthurpicht.utils.io.checksum.MultiHasher;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Computes checksums of all bytes written through this stream by one or more checksum algorithms. Bulk writes are
+ * passed to the target stream and update all checksums at once.
+ * <br>
+ * Example:
+ * <pre>
+ *     ChecksumOutputStream outputStream = new ChecksumOutputStream(
+ *             Files.newOutputStream(target), StandardChecksumAlgorithm.CRC32C, StandardChecksumAlgorithm.SHA_256);
+ *     try (outputStream) {
+ *         Files.copy(source, outputStream);
+ *     }
+ *     Map&lt;ChecksumAlgorithm, byte[]&gt; checksums = outputStream.getValues();
+ * </pre>
+ */
+public class ChecksumOutputStream extends FilterOutputStream {
+
+    private final MultiHasher multiHasher;
+    private final byte[] singleByte = new byte[1];
+
+    public ChecksumOutputStream(OutputStream out, ChecksumAlgorithm... algorithms) {
+        this(out, List.of(algorithms));
+    }
+
+    /**
+     * @param out stream to be written to
+     * @param algorithms checksum algorithms, at least one
+     */
+    public ChecksumOutputStream(OutputStream out, List<? extends ChecksumAlgorithm> algorithms) {
+        super(out);
+        assertArgumentNotNull("algorithms", algorithms);
+        if (algorithms.isEmpty()) throw new IllegalArgumentException("At least one checksum algorithm required.");
+        this.multiHasher = new MultiHasher(algorithms);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.out.write(b);
+        this.singleByte[0] = (byte) b;
+        this.multiHasher.update(this.singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        this.out.write(b, off, len);
+        this.multiHasher.update(b, off, len);
+    }
+
+    /**
+     * @param algorithm one of the algorithms specified on construction
+     * @return checksum of all bytes written so far
+     */
+    public byte[] getValue(ChecksumAlgorithm algorithm) {
+        return this.multiHasher.getValue(algorithm);
+    }
+
+    /**
+     * @return checksums of all bytes written so far, by algorithm in order as specified on construction
+     */
+    public Map<ChecksumAlgorithm, byte[]> getValues() {
+        return this.multiHasher.getValues();
+    }
+
+    /**
+     * @return number of bytes written so far
+     */
+    public long getByteCount() {
+        return this.multiHasher.getByteCount();
+    }
+
+}
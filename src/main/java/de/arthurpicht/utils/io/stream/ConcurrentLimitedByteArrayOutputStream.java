@@ -0,0 +1,169 @@
+package de.arthurpicht.utils.io.stream;
+
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.Charset;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A limited ByteArrayOutputStream for many concurrent writers. Buffers only the last passed bytes as specified by
+ * maxSize, like {@link LimitedByteArrayOutputStream}, but without locking.
+ * <br>
+ * Writers reserve a range of the ring buffer by an atomic claim of a sequence position, copy their bytes
+ * concurrently and publish them in claim order. Writers do not wait for earlier writes to be published: a write
+ * completed before earlier ones is published by the last of them. So a stalled writer only delays the visibility
+ * of later writes, not the writers. The bytes of a single write call are never interleaved with bytes of other
+ * writes. Readers take a snapshot of the published bytes without blocking writers and validate it
+ * afterwards. Bytes that were overwritten by concurrent writers while copying are cut off, so a snapshot taken
+ * during concurrent writes may contain fewer than maxSize bytes. It is always a contiguous sequence of the
+ * latest published bytes.
+ */
+public class ConcurrentLimitedByteArrayOutputStream extends OutputStream {
+
+    private static final int MAX_SPINS = 100;
+    private static final long PARK_NANOS = 10_000;
+
+    private final int maxSize;
+    private final byte[] buffer;
+
+    // position after the last claimed byte
+    private final AtomicLong claimed = new AtomicLong();
+    // position after the last published byte, all bytes before are completely written
+    private final AtomicLong published = new AtomicLong();
+    // start and end positions of completed writes waiting for earlier writes to be published
+    private final ConcurrentHashMap<Long, Long> completed = new ConcurrentHashMap<>();
+    // position of the last reset, bytes before are discarded
+    private final AtomicLong resetPosition = new AtomicLong();
+
+    public ConcurrentLimitedByteArrayOutputStream(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be greater than 0");
+        this.maxSize = maxSize;
+        this.buffer = new byte[maxSize];
+    }
+
+    @Override
+    public void write(int b) {
+        long position = this.claimed.getAndIncrement();
+        awaitPublished(position + 1 - this.maxSize);
+        this.buffer[index(position)] = (byte) b;
+        publish(position, position + 1);
+    }
+
+    /**
+     * Writes specified bytes by at most two array copies. If more than maxSize bytes are passed, only the last
+     * maxSize bytes are copied, as the others would be overwritten anyway.
+     */
+    @Override
+    public void write(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) return;
+        long position = this.claimed.getAndAdd(len);
+        long end = position + len;
+
+        int copyLength = Math.min(len, this.maxSize);
+        long copyPosition = end - copyLength;
+        // earlier writes to the same part of the ring must be completed before they are overwritten
+        awaitPublished(Math.min(position, end - this.maxSize));
+
+        int index = index(copyPosition);
+        int firstLength = Math.min(copyLength, this.maxSize - index);
+        System.arraycopy(b, off + len - copyLength, this.buffer, index, firstLength);
+        System.arraycopy(b, off + len - copyLength + firstLength, this.buffer, 0, copyLength - firstLength);
+
+        publish(position, end);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    private void publish(long position, long end) {
+        if (!this.published.compareAndSet(position, end)) {
+            // earlier writes are not published yet, the last of them publishes this write as well
+            this.completed.put(position, end);
+            if (this.published.get() != position || !this.completed.remove(position, end)) return;
+            this.published.set(end);
+        }
+        Long next;
+        while ((next = this.completed.remove(end)) != null) {
+            end = next;
+            this.published.set(end);
+        }
+    }
+
+    private void awaitPublished(long position) {
+        int waits = 0;
+        while (this.published.get() < position) {
+            // an earlier writer is still copying to this part of the ring, unless it is descheduled
+            if (waits < MAX_SPINS) {
+                Thread.onSpinWait();
+                waits++;
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    private int index(long position) {
+        return (int) (position % this.maxSize);
+    }
+
+    @Override
+    public String toString() {
+        return new String(toByteArray());
+    }
+
+    public String toString(String charsetName) throws UnsupportedEncodingException {
+        return new String(toByteArray(), charsetName);
+    }
+
+    public String toString(Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+
+    /**
+     * Returns a snapshot of the last published bytes, see class description.
+     */
+    public byte[] toByteArray() {
+        long end = this.published.get();
+        long start = Math.max(end - this.maxSize, this.resetPosition.get());
+        if (start >= end) return new byte[0];
+
+        byte[] snapshot = new byte[(int) (end - start)];
+        int index = index(start);
+        int firstLength = Math.min(snapshot.length, this.maxSize - index);
+        System.arraycopy(this.buffer, index, snapshot, 0, firstLength);
+        System.arraycopy(this.buffer, 0, snapshot, firstLength, snapshot.length - firstLength);
+
+        // bytes of positions claimed in the meantime may have been overwritten while copying
+        VarHandle.acquireFence();
+        long validStart = this.claimed.get() - this.maxSize;
+        if (validStart <= start) return snapshot;
+        if (validStart >= end) return new byte[0];
+        byte[] validSnapshot = new byte[(int) (end - validStart)];
+        System.arraycopy(snapshot, (int) (validStart - start), validSnapshot, 0, validSnapshot.length);
+        return validSnapshot;
+    }
+
+    /**
+     * @return number of buffered bytes, as published at time of calling
+     */
+    public int size() {
+        long end = this.published.get();
+        return (int) (end - Math.max(end - this.maxSize, Math.min(end, this.resetPosition.get())));
+    }
+
+    /**
+     * Discards all bytes published so far. Bytes of writes that are not yet published are retained.
+     */
+    public void reset() {
+        long end = this.published.get();
+        this.resetPosition.accumulateAndGet(end, Math::max);
+    }
+
+}
@@ -0,0 +1,233 @@
+package de.arthurpicht.utils.io.stream;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static de.arthurpicht.utils.core.assertion.MethodPreconditions.assertArgumentNotNull;
+
+/**
+ * Keeps all written bytes, in memory up to a threshold and in a temporary file beyond. As opposed to
+ * {@link LimitedByteArrayOutputStream}, no bytes are dropped, while heap usage is bounded by the threshold.
+ * <br>
+ * When a write exceeds the threshold, buffered bytes are spilled to a new file in specified {@link TempDir} and all
+ * further bytes are written to this file. After closing, the content is read by {@link #toInputStream()},
+ * {@link #writeTo(OutputStream)}, {@link #writeTo(WritableByteChannel)} or {@link #openFileChannel()}. The
+ * temporary file is deleted by {@link #delete()} or, at the latest, together with the temp dir.
+ * <br>
+ * Example:
+ * <pre>
+ *     DeferredFileOutputStream outputStream = new DeferredFileOutputStream(1024 * 1024, tempDir);
+ *     try (outputStream) {
+ *         process.getInputStream().transferTo(outputStream);
+ *     }
+ *     try (FileChannel channel = outputStream.openFileChannel()) {
+ *         channel.transferTo(0, channel.size(), socketChannel);
+ *     }
+ *     outputStream.delete();
+ * </pre>
+ */
+public class DeferredFileOutputStream extends OutputStream {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int FILE_BUFFER_SIZE = 8 * 1024;
+
+    private final int threshold;
+    private final TempDir tempDir;
+
+    private byte[] buffer;
+    private long size = 0;
+    private Path file = null;
+    private OutputStream fileOutputStream = null;
+    private boolean closed = false;
+
+    /**
+     * @param threshold maximum number of bytes kept in memory
+     * @param tempDir directory for temporary file
+     */
+    public DeferredFileOutputStream(int threshold, TempDir tempDir) {
+        if (threshold < 0) throw new IllegalArgumentException("threshold must not be negative");
+        assertArgumentNotNull("tempDir", tempDir);
+        this.threshold = threshold;
+        this.tempDir = tempDir;
+        this.buffer = new byte[Math.min(threshold, INITIAL_BUFFER_SIZE)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        prepareWrite(1);
+        if (this.fileOutputStream != null) {
+            this.fileOutputStream.write(b);
+        } else {
+            this.buffer[(int) this.size] = (byte) b;
+        }
+        this.size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        prepareWrite(len);
+        if (this.fileOutputStream != null) {
+            this.fileOutputStream.write(b, off, len);
+        } else {
+            System.arraycopy(b, off, this.buffer, (int) this.size, len);
+        }
+        this.size += len;
+    }
+
+    private void prepareWrite(int len) throws IOException {
+        if (this.closed) throw new IOException("Stream closed.");
+        if (this.fileOutputStream != null) return;
+        long required = this.size + len;
+        if (required > this.threshold) {
+            spill();
+        } else if (required > this.buffer.length) {
+            int newLength = (int) Math.min(this.threshold, Math.max(required, 2L * this.buffer.length));
+            this.buffer = Arrays.copyOf(this.buffer, newLength);
+        }
+    }
+
+    private void spill() throws IOException {
+        this.file = Files.createTempFile(this.tempDir.asPath(), "deferred-", ".tmp");
+        this.fileOutputStream = new BufferedOutputStream(Files.newOutputStream(this.file), FILE_BUFFER_SIZE);
+        this.fileOutputStream.write(this.buffer, 0, (int) this.size);
+        this.buffer = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.fileOutputStream != null) this.fileOutputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        if (this.fileOutputStream != null) this.fileOutputStream.close();
+    }
+
+    /**
+     * @return number of bytes written
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * @return true if content is kept in memory, false if it is spilled to a file
+     */
+    public boolean isInMemory() {
+        return this.file == null;
+    }
+
+    /**
+     * @return temporary file or null if content is kept in memory
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns a stream reading the content. Content kept in memory is read without copy.
+     *
+     * @return stream of content, to be closed by caller
+     * @throws IOException on error when opening file
+     * @throws IllegalStateException if this stream is not closed or is deleted
+     */
+    public InputStream toInputStream() throws IOException {
+        assertReadable();
+        if (isInMemory()) return new ByteArrayInputStream(this.buffer, 0, (int) this.size);
+        return Files.newInputStream(this.file);
+    }
+
+    /**
+     * Writes the content to specified stream.
+     *
+     * @param out destination stream
+     * @throws IOException on error when reading or writing
+     * @throws IllegalStateException if this stream is not closed or is deleted
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        assertReadable();
+        if (isInMemory()) {
+            out.write(this.buffer, 0, (int) this.size);
+        } else {
+            Files.copy(this.file, out);
+        }
+    }
+
+    /**
+     * Writes the content to specified channel. Content spilled to a file is transferred by
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which avoids copying through the java heap
+     * where supported by the operating system.
+     *
+     * @param channel destination channel
+     * @throws IOException on error when reading or writing
+     * @throws IllegalStateException if this stream is not closed or is deleted
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        assertReadable();
+        if (isInMemory()) {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(this.buffer, 0, (int) this.size);
+            while (byteBuffer.hasRemaining()) channel.write(byteBuffer);
+            return;
+        }
+        try (FileChannel fileChannel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < this.size) {
+                position += fileChannel.transferTo(position, this.size - position, channel);
+            }
+        }
+    }
+
+    /**
+     * Opens a read only channel of the content, e.g. for zero-copy transfer or memory mapping. Content kept in
+     * memory is spilled to a file first.
+     *
+     * @return channel of content, to be closed by caller
+     * @throws IOException on error when writing or opening file
+     * @throws IllegalStateException if this stream is not closed or is deleted
+     */
+    public FileChannel openFileChannel() throws IOException {
+        assertReadable();
+        if (isInMemory()) {
+            Path spillFile = Files.createTempFile(this.tempDir.asPath(), "deferred-", ".tmp");
+            try (WritableByteChannel channel = Files.newByteChannel(spillFile, StandardOpenOption.WRITE)) {
+                writeTo(channel);
+            }
+            this.file = spillFile;
+            this.buffer = null;
+        }
+        return FileChannel.open(this.file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Discards the content and deletes the temporary file, if any.
+     *
+     * @throws IOException on error when deleting file
+     */
+    public void delete() throws IOException {
+        close();
+        this.buffer = null;
+        if (this.file != null) {
+            Files.deleteIfExists(this.file);
+            this.file = null;
+        }
+    }
+
+    private void assertReadable() {
+        if (!this.closed) throw new IllegalStateException("DeferredFileOutputStream not closed.");
+        if (this.buffer == null && this.file == null)
+            throw new IllegalStateException("DeferredFileOutputStream deleted.");
+    }
+
+}
@@ -1,7 +1,10 @@
 package de.arthurpicht.utils.io.stream;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.Objects;
 
@@ -25,19 +28,39 @@ public class LimitedByteArrayOutputStream extends OutputStream {
 
     @Override
     public synchronized void write(int b) {
-        buffer[(start + count) % maxSize] = (byte) b;
+        buffer[wrap(start + count)] = (byte) b;
         if (count < maxSize) {
             count++;
         } else {
-            start = (start + 1) % maxSize;
+            start = wrap(start + 1);
         }
     }
 
+    /**
+     * Writes specified bytes by at most two array copies. If more than maxSize bytes are passed, only the last
+     * maxSize bytes are copied, as the others would be overwritten anyway.
+     */
     @Override
     public synchronized void write(byte[] b, int off, int len) {
         Objects.checkFromIndexSize(off, len, b.length);
-        for (int i = 0; i < len; i++) {
-            write(b[off + i]);
+        if (len >= maxSize) {
+            System.arraycopy(b, off + len - maxSize, buffer, 0, maxSize);
+            start = 0;
+            count = maxSize;
+            return;
+        }
+
+        int end = wrap(start + count);
+        int firstLength = Math.min(len, maxSize - end);
+        System.arraycopy(b, off, buffer, end, firstLength);
+        System.arraycopy(b, off + firstLength, buffer, 0, len - firstLength);
+
+        int overwritten = len - (maxSize - count);
+        if (overwritten > 0) {
+            start = wrap(start + overwritten);
+            count = maxSize;
+        } else {
+            count += len;
         }
     }
 
@@ -63,10 +86,80 @@ public class LimitedByteArrayOutputStream extends OutputStream {
     }
 
     public synchronized byte[] toByteArray() {
-        byte[] result = new byte[count];
-        for (int i = 0; i < count; i++) {
-            result[i] = buffer[(start + i) % maxSize];
+        return copyLast(count);
+    }
+
+    /**
+     * Writes buffered bytes to specified stream as at most two slices of the ring buffer, without intermediate
+     * copy.
+     *
+     * @param out destination stream
+     * @throws IOException if thrown by destination stream
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        int firstLength = Math.min(count, maxSize - start);
+        out.write(buffer, start, firstLength);
+        if (firstLength < count) out.write(buffer, 0, count - firstLength);
+    }
+
+    /**
+     * Writes buffered bytes to specified channel as at most two slices of the ring buffer, without intermediate
+     * copy.
+     *
+     * @param channel destination channel
+     * @throws IOException if thrown by destination channel
+     */
+    public synchronized void writeTo(WritableByteChannel channel) throws IOException {
+        int firstLength = Math.min(count, maxSize - start);
+        writeFully(channel, ByteBuffer.wrap(buffer, start, firstLength));
+        writeFully(channel, ByteBuffer.wrap(buffer, 0, count - firstLength));
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer byteBuffer) throws IOException {
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+    }
+
+    /**
+     * Returns the last lines of buffered bytes, decoded with the default charset. A trailing line break does not
+     * start a new line. If fewer lines are buffered, all buffered bytes are returned. Only the returned bytes are
+     * copied.
+     *
+     * @param n number of lines
+     * @return last n lines including line breaks
+     */
+    public synchronized String lastLines(int n) {
+        return new String(copyLast(lastLinesLength(n)));
+    }
+
+    /**
+     * Returns the last lines of buffered bytes, decoded with specified charset.
+     *
+     * @see #lastLines(int)
+     */
+    public synchronized String lastLines(int n, Charset charset) {
+        return new String(copyLast(lastLinesLength(n)), charset);
+    }
+
+    private int lastLinesLength(int n) {
+        if (n < 0) throw new IllegalArgumentException("n must not be negative");
+        if (n == 0 || count == 0) return 0;
+        int length = buffer[wrap(start + count - 1)] == '\n' ? 1 : 0;
+        int lines = 0;
+        while (length < count) {
+            if (buffer[wrap(start + count - 1 - length)] == '\n' && ++lines == n) return length;
+            length++;
         }
+        return count;
+    }
+
+    private byte[] copyLast(int length) {
+        byte[] result = new byte[length];
+        int from = wrap(start + count - length);
+        int firstLength = Math.min(length, maxSize - from);
+        System.arraycopy(buffer, from, result, 0, firstLength);
+        System.arraycopy(buffer, 0, result, firstLength, length - firstLength);
         return result;
     }
 
@@ -79,4 +172,11 @@ public class LimitedByteArrayOutputStream extends OutputStream {
         start = 0;
     }
 
+    /**
+     * Maps a position of at most 2 * maxSize - 1 to the buffer, replacing the more expensive modulo operation.
+     */
+    private int wrap(int position) {
+        return position >= maxSize ? position - maxSize : position;
+    }
+
 }
@@ -2,48 +2,72 @@ package de.arthurpicht.utils.io.stream;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
 
 /**
- * Tee operations to two different OutputStreams.
+ * Tee operations to two or more different OutputStreams. Each operation is passed to all streams, even if one of
+ * them fails with an IOException or a RuntimeException. The first exception is thrown afterwards, further
+ * exceptions are added as suppressed. For sinks that should not stall the writer, see {@link AsyncTeeOutputStream}.
  */
 public class TeeOutputStream extends OutputStream {
 
-    private final OutputStream out1;
-    private final OutputStream out2;
+    private interface Operation {
+        void apply(OutputStream out) throws IOException;
+    }
+
+    private final List<OutputStream> outs;
 
     public TeeOutputStream(OutputStream out1, OutputStream out2) {
-        this.out1 = out1;
-        this.out2 = out2;
+        this(List.of(out1, out2));
+    }
+
+    /**
+     * @param outs streams to be written to
+     */
+    public TeeOutputStream(List<? extends OutputStream> outs) {
+        this.outs = List.copyOf(outs);
     }
 
     @Override
     public void write(int b) throws IOException {
-        out1.write(b);
-        out2.write(b);
+        forEach(out -> out.write(b));
     }
 
     @Override
     public void write(byte[] b) throws IOException {
-        out1.write(b);
-        out2.write(b);
+        forEach(out -> out.write(b));
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        out1.write(b, off, len);
-        out2.write(b, off, len);
+        forEach(out -> out.write(b, off, len));
     }
 
     @Override
     public void flush() throws IOException {
-        out1.flush();
-        out2.flush();
+        forEach(OutputStream::flush);
     }
 
     @Override
     public void close() throws IOException {
-        out1.close();
-        out2.close();
+        forEach(OutputStream::close);
+    }
+
+    private void forEach(Operation operation) throws IOException {
+        Exception exception = null;
+        for (OutputStream out : this.outs) {
+            try {
+                operation.apply(out);
+            } catch (IOException | RuntimeException e) {
+                if (exception == null) {
+                    exception = e;
+                } else if (e != exception) {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if (exception instanceof IOException ioException) throw ioException;
+        if (exception != null) throw (RuntimeException) exception;
     }
 
 }
@@ -0,0 +1,149 @@
+package de.arthurpicht.utils.io.checksum;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumCacheTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    @Test
+    void hitAndMiss() throws IOException {
+        Path file = createFile("hitAndMiss.txt", "abc");
+        ChecksumCache checksumCache = new ChecksumCache(10);
+
+        byte[] expected = Checksums.compute(file, StandardChecksumAlgorithm.SHA_256);
+        assertArrayEquals(expected, checksumCache.compute(file, StandardChecksumAlgorithm.SHA_256));
+        assertArrayEquals(expected, checksumCache.compute(file, StandardChecksumAlgorithm.SHA_256));
+
+        assertEquals(1, checksumCache.getMissCount());
+        assertEquals(1, checksumCache.getHitCount());
+        assertEquals(1, checksumCache.size());
+    }
+
+    @Test
+    void modifiedFileIsRecomputed() throws IOException {
+        Path file = createFile("modifiedFileIsRecomputed.txt", "abc");
+        ChecksumCache checksumCache = new ChecksumCache(10);
+        checksumCache.compute(file, StandardChecksumAlgorithm.CRC32);
+
+        Files.writeString(file, "abd");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2020-01-02T00:00:00Z")));
+
+        assertArrayEquals(Checksums.compute(file, StandardChecksumAlgorithm.CRC32),
+                checksumCache.compute(file, StandardChecksumAlgorithm.CRC32));
+        assertEquals(2, checksumCache.getMissCount());
+        assertEquals(0, checksumCache.getHitCount());
+    }
+
+    @Test
+    void multipleAlgorithms() throws IOException {
+        Path file = createFile("multipleAlgorithms.txt", "abc");
+        ChecksumCache checksumCache = new ChecksumCache(10);
+        checksumCache.compute(file, StandardChecksumAlgorithm.CRC32);
+
+        List<StandardChecksumAlgorithm> algorithms = List.of(
+                StandardChecksumAlgorithm.SHA_256, StandardChecksumAlgorithm.CRC32, StandardChecksumAlgorithm.XXHASH64);
+        Map<ChecksumAlgorithm, byte[]> values = checksumCache.compute(file, algorithms);
+
+        assertIterableEquals(algorithms, values.keySet());
+        Map<ChecksumAlgorithm, byte[]> expected = Checksums.compute(file, algorithms);
+        for (StandardChecksumAlgorithm algorithm : algorithms) {
+            assertArrayEquals(expected.get(algorithm), values.get(algorithm));
+        }
+        assertEquals(1, checksumCache.getHitCount());
+        assertEquals(3, checksumCache.getMissCount());
+        assertEquals(3, checksumCache.size());
+    }
+
+    @Test
+    void saveAndLoad() throws IOException {
+        Path file1 = createFile("saveAndLoad1.txt", "abc");
+        Path file2 = createFile("saveAndLoad2.txt", "def");
+        Path indexFile = tempDir.asPath().resolve("saveAndLoad.idx");
+
+        ChecksumCache checksumCache = ChecksumCache.load(indexFile, 10);
+        assertEquals(0, checksumCache.size());
+        checksumCache.compute(file1, StandardChecksumAlgorithm.SHA_256);
+        checksumCache.compute(file2, StandardChecksumAlgorithm.XXHASH64);
+        checksumCache.save(indexFile);
+
+        ChecksumCache loadedChecksumCache = ChecksumCache.load(indexFile, 10);
+        assertEquals(2, loadedChecksumCache.size());
+        assertArrayEquals(Checksums.compute(file1, StandardChecksumAlgorithm.SHA_256),
+                loadedChecksumCache.compute(file1, StandardChecksumAlgorithm.SHA_256));
+        assertArrayEquals(Checksums.compute(file2, StandardChecksumAlgorithm.XXHASH64),
+                loadedChecksumCache.compute(file2, StandardChecksumAlgorithm.XXHASH64));
+        assertEquals(2, loadedChecksumCache.getHitCount());
+        assertEquals(0, loadedChecksumCache.getMissCount());
+    }
+
+    @Test
+    void loadCorruptIndexFile() throws IOException {
+        Path indexFile = createFile("loadCorruptIndexFile.idx", "no index");
+        assertThrows(IOException.class, () -> ChecksumCache.load(indexFile, 10));
+    }
+
+    @Test
+    void boundedSize() throws IOException {
+        ChecksumCache checksumCache = new ChecksumCache(2);
+        Path file1 = createFile("boundedSize1.txt", "1");
+        Path file2 = createFile("boundedSize2.txt", "2");
+        Path file3 = createFile("boundedSize3.txt", "3");
+
+        checksumCache.compute(file1, StandardChecksumAlgorithm.CRC32);
+        checksumCache.compute(file2, StandardChecksumAlgorithm.CRC32);
+        checksumCache.compute(file1, StandardChecksumAlgorithm.CRC32);
+        checksumCache.compute(file3, StandardChecksumAlgorithm.CRC32);
+
+        assertEquals(2, checksumCache.size());
+        assertEquals(1, checksumCache.getEvictionCount());
+
+        checksumCache.compute(file1, StandardChecksumAlgorithm.CRC32);
+        assertEquals(2, checksumCache.getHitCount());
+    }
+
+    @Test
+    void invalidate() throws IOException {
+        Path file = createFile("invalidate.txt", "abc");
+        ChecksumCache checksumCache = new ChecksumCache(10);
+        checksumCache.compute(file, List.of(StandardChecksumAlgorithm.CRC32, StandardChecksumAlgorithm.ADLER32));
+        assertEquals(2, checksumCache.size());
+
+        checksumCache.invalidate(file);
+        assertEquals(0, checksumCache.size());
+    }
+
+    private static Path createFile(String name, String content) throws IOException {
+        Path file = tempDir.asPath().resolve(name);
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2020-01-01T00:00:00Z")));
+        return file;
+    }
+
+}
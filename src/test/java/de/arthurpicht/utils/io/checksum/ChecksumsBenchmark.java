@@ -0,0 +1,100 @@
+package de.arthurpicht.utils.io.checksum;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * Measures throughput of {@link Checksums} on a large file for all read strategies, some buffer sizes and all
+ * standard checksum algorithms.
+ * Not part of the test suite. Run by: gradle checksumBenchmark [-PfileSizeMB=...]
+ */
+public class ChecksumsBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        long fileSizeMB = args.length > 0 ? Long.parseLong(args[0]) : 1024;
+
+        TempDir tempDir = new TempDir.Creator().withParentDir("testTemp").create();
+        Path file = tempDir.asPath().resolve("benchmark.bin");
+        writeRandomFile(file, fileSizeMB * 1024 * 1024);
+        System.out.println("File size: " + fileSizeMB + " MB (page cache warm after first round)");
+
+        run("InputStream 1 KB (legacy)  ", file, () -> legacyCrc32(file));
+        for (int bufferSize : new int[]{8 * 1024, 128 * 1024, 1024 * 1024}) {
+            run("DIRECT_BUFFER " + String.format("%5d", bufferSize / 1024) + " KB     ", file,
+                    () -> Checksums.computeCrc32(file, Checksums.ReadStrategy.DIRECT_BUFFER, bufferSize));
+        }
+        run("MEMORY_MAPPED " + Checksums.DEFAULT_MAPPED_REGION_SIZE / (1024 * 1024) + " MB       ", file,
+                () -> Checksums.computeCrc32(file, Checksums.ReadStrategy.MEMORY_MAPPED, Checksums.DEFAULT_MAPPED_REGION_SIZE));
+        run("parallel " + Checksums.DEFAULT_PARALLEL_CHUNK_SIZE / (1024 * 1024) + " MB chunks    ", file,
+                () -> Checksums.computeCrc32Parallel(file));
+
+        for (StandardChecksumAlgorithm algorithm : StandardChecksumAlgorithm.values()) {
+            run(String.format("%-27s", algorithm.getName()), file,
+                    () -> leadingLong(Checksums.compute(file, algorithm)));
+        }
+        List<StandardChecksumAlgorithm> allAlgorithms = List.of(StandardChecksumAlgorithm.values());
+        run("all algorithms, single pass", file,
+                () -> leadingLong(Checksums.compute(file, allAlgorithms).get(StandardChecksumAlgorithm.CRC32)));
+
+        tempDir.remove();
+    }
+
+    private interface Computation {
+        long compute() throws IOException;
+    }
+
+    private static void run(String name, Path file, Computation computation) throws IOException {
+        long size = Files.size(file);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) computation.compute();
+        long best = Long.MAX_VALUE;
+        long result = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            result = computation.compute();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double gbPerSecond = (size / (double) (1L << 30)) / (best / 1e9);
+        System.out.printf("%s %8.2f GB/s  (value=%08x)%n", name, gbPerSecond, result);
+    }
+
+    private static long leadingLong(byte[] value) {
+        long result = 0;
+        for (int i = 0; i < Math.min(8, value.length); i++) result = (result << 8) | (value[i] & 0xFF);
+        return result;
+    }
+
+    private static long legacyCrc32(Path file) throws IOException {
+        CRC32 crc32 = new CRC32();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[1024];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                crc32.update(buffer, 0, bytesRead);
+            }
+        }
+        return crc32.getValue();
+    }
+
+    private static void writeRandomFile(Path file, long size) throws IOException {
+        byte[] block = new byte[1024 * 1024];
+        Random random = new Random(0);
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                outputStream.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package de.arthurpicht.utils.io.checksum;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumsTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    @Test
+    void computeCrc32() throws IOException {
+        byte[] content = randomBytes(1_000_000, 1);
+        Path file = tempDir.asPath().resolve("computeCrc32.bin");
+        Files.write(file, content);
+
+        long expected = crc32(content);
+        assertEquals(expected, Checksums.computeCrc32(file));
+        assertEquals(expected, Checksums.computeCrc32(file, Checksums.ReadStrategy.DIRECT_BUFFER, 1000));
+        assertEquals(expected, Checksums.computeCrc32(file, Checksums.ReadStrategy.DIRECT_BUFFER, 4096));
+        assertEquals(expected, Checksums.computeCrc32(file, Checksums.ReadStrategy.MEMORY_MAPPED, 4096));
+        assertEquals(expected, Checksums.computeCrc32(file, Checksums.ReadStrategy.MEMORY_MAPPED,
+                Checksums.DEFAULT_MAPPED_REGION_SIZE));
+    }
+
+    @Test
+    void computeCrc32EmptyFile() throws IOException {
+        Path file = tempDir.asPath().resolve("computeCrc32EmptyFile.bin");
+        Files.createFile(file);
+
+        assertEquals(0, Checksums.computeCrc32(file));
+        assertEquals(0, Checksums.computeCrc32(file, Checksums.ReadStrategy.MEMORY_MAPPED, 4096));
+    }
+
+    @Test
+    void computeCrc32List() throws IOException {
+        byte[] content1 = randomBytes(300_000, 2);
+        byte[] content2 = randomBytes(5, 3);
+        Path file1 = tempDir.asPath().resolve("computeCrc32List1.bin");
+        Path file2 = tempDir.asPath().resolve("computeCrc32List2.bin");
+        Files.write(file1, content1);
+        Files.write(file2, content2);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(content1);
+        crc32.update(content2);
+        long expected = crc32.getValue();
+
+        assertEquals(expected, Checksums.computeCrc32(List.of(file1, file2)));
+        assertEquals(expected, Checksums.computeCrc32(List.of(file1, file2), Checksums.ReadStrategy.MEMORY_MAPPED, 65536));
+    }
+
+    @Test
+    void illegalBufferSize() throws IOException {
+        Path file = tempDir.asPath().resolve("illegalBufferSize.bin");
+        Files.createFile(file);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> Checksums.computeCrc32(file, Checksums.ReadStrategy.DIRECT_BUFFER, 0));
+    }
+
+    @Test
+    void combineCrc32() {
+        byte[] content = randomBytes(10_000, 4);
+        long expected = crc32(content);
+        for (int split : new int[]{0, 1, 4999, 9999, 10_000}) {
+            long crc1 = crc32(Arrays.copyOfRange(content, 0, split));
+            long crc2 = crc32(Arrays.copyOfRange(content, split, content.length));
+            assertEquals(expected, Checksums.combineCrc32(crc1, crc2, content.length - split));
+        }
+    }
+
+    @Test
+    void computeCrc32Parallel() throws IOException {
+        byte[] content = randomBytes(1_000_003, 5);
+        Path file = tempDir.asPath().resolve("computeCrc32Parallel.bin");
+        Files.write(file, content);
+
+        long expected = crc32(content);
+        assertEquals(expected, Checksums.computeCrc32Parallel(file));
+        assertEquals(expected, Checksums.computeCrc32Parallel(file, 1000));
+        assertEquals(expected, Checksums.computeCrc32Parallel(file, 65536));
+        assertEquals(expected, Checksums.computeCrc32Parallel(file, 1_000_003));
+    }
+
+    @Test
+    void computeCrc32ParallelEmptyFile() throws IOException {
+        Path file = tempDir.asPath().resolve("computeCrc32ParallelEmptyFile.bin");
+        Files.createFile(file);
+
+        assertEquals(0, Checksums.computeCrc32Parallel(file, 1000));
+    }
+
+    @Test
+    void computeCrc32ListParallel() throws IOException {
+        List<Path> files = new ArrayList<>();
+        CRC32 crc32 = new CRC32();
+        for (int i = 0; i < 50; i++) {
+            byte[] content = randomBytes(i * 997, 100 + i);
+            Path file = tempDir.asPath().resolve("computeCrc32ListParallel" + i + ".bin");
+            Files.write(file, content);
+            files.add(file);
+            crc32.update(content);
+        }
+
+        assertEquals(crc32.getValue(), Checksums.computeCrc32Parallel(files));
+        assertEquals(Checksums.computeCrc32(files), Checksums.computeCrc32Parallel(files));
+
+        Checksums.Crc32Result result = Checksums.computeCrc32PerFileParallel(files);
+        assertEquals(crc32.getValue(), result.getCrc32());
+        assertEquals(files, result.getPaths());
+        assertEquals(Checksums.computeCrc32(files.get(7)), result.getFileCrc32(7));
+        assertEquals(Checksums.computeCrc32(files.get(49)), (long) result.getFileCrc32s().get(files.get(49)));
+        assertEquals(0, result.getFileCrc32(0));
+    }
+
+    @Test
+    void computeCrc32ListParallelEmpty() throws IOException {
+        assertEquals(0, Checksums.computeCrc32Parallel(List.of()));
+    }
+
+    @Test
+    void computeByAlgorithm() throws IOException {
+        Path file = tempDir.asPath().resolve("computeByAlgorithm.txt");
+        Files.writeString(file, "abc");
+
+        assertEquals("352441c2", HexFormat.of().formatHex(Checksums.compute(file, StandardChecksumAlgorithm.CRC32)));
+        assertEquals("364b3fb7", HexFormat.of().formatHex(Checksums.compute(file, StandardChecksumAlgorithm.CRC32C)));
+        assertEquals("024d0127", HexFormat.of().formatHex(Checksums.compute(file, StandardChecksumAlgorithm.ADLER32)));
+        assertEquals("44bc2cf5ad770999", HexFormat.of().formatHex(Checksums.compute(file, StandardChecksumAlgorithm.XXHASH64)));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                HexFormat.of().formatHex(Checksums.compute(file, StandardChecksumAlgorithm.SHA_256)));
+    }
+
+    @Test
+    void computeMultipleAlgorithmsSinglePass() throws IOException {
+        byte[] content = randomBytes(1_000_000, 3);
+        Path file = tempDir.asPath().resolve("computeMultipleAlgorithmsSinglePass.bin");
+        Files.write(file, content);
+
+        List<StandardChecksumAlgorithm> algorithms = List.of(StandardChecksumAlgorithm.values());
+        for (Checksums.ReadStrategy readStrategy : Checksums.ReadStrategy.values()) {
+            Map<ChecksumAlgorithm, byte[]> values = Checksums.compute(file, algorithms, readStrategy, 4096);
+            assertEquals(algorithms, new ArrayList<>(values.keySet()));
+            for (StandardChecksumAlgorithm algorithm : algorithms) {
+                ChecksumAlgorithm.Hasher hasher = algorithm.newHasher();
+                hasher.update(ByteBuffer.wrap(content));
+                assertArrayEquals(hasher.getValue(), values.get(algorithm), algorithm.getName());
+            }
+        }
+        assertEquals(crc32(content),
+                Long.parseLong(HexFormat.of().formatHex(Checksums.compute(file, StandardChecksumAlgorithm.CRC32)), 16));
+    }
+
+    static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    static long crc32(byte[] bytes) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        return crc32.getValue();
+    }
+
+}
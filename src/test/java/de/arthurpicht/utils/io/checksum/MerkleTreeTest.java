@@ -0,0 +1,142 @@
+package de.arthurpicht.utils.io.checksum;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerkleTreeTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    @Test
+    void build() throws IOException {
+        Path root = createTree("build");
+        MerkleTree merkleTree = MerkleTree.build(root, StandardChecksumAlgorithm.SHA_256);
+
+        assertEquals(4, merkleTree.getHashedFileCount());
+        assertEquals(3, merkleTree.getRootNode().getChildren().size());
+        MerkleTree.Node file = merkleTree.getNode("dir1/b.txt").orElseThrow();
+        assertFalse(file.isDirectory());
+        assertArrayEquals(Checksums.compute(root.resolve("dir1/b.txt"), StandardChecksumAlgorithm.SHA_256), file.getHash());
+        assertTrue(merkleTree.getNode("dir2/empty").orElseThrow().isDirectory());
+        assertFalse(merkleTree.getNode("dir1/unknown.txt").isPresent());
+    }
+
+    @Test
+    void identicalTreesHaveIdenticalRootHash() throws IOException {
+        MerkleTree merkleTree1 = MerkleTree.build(createTree("identical1"), StandardChecksumAlgorithm.XXHASH64);
+        MerkleTree merkleTree2 = MerkleTree.build(createTree("identical2"), StandardChecksumAlgorithm.XXHASH64);
+
+        assertArrayEquals(merkleTree1.getRootHash(), merkleTree2.getRootHash());
+        assertTrue(merkleTree1.diff(merkleTree2).isEmpty());
+    }
+
+    @Test
+    void refreshRehashesOnlyChangedFiles() throws IOException {
+        Path root = createTree("refresh");
+        MerkleTree merkleTree = MerkleTree.build(root, StandardChecksumAlgorithm.XXHASH64);
+
+        MerkleTree unchanged = merkleTree.refresh();
+        assertEquals(0, unchanged.getHashedFileCount());
+        assertArrayEquals(merkleTree.getRootHash(), unchanged.getRootHash());
+
+        writeFile(root.resolve("dir1/b.txt"), "B", "2021-01-01T00:00:00Z");
+        MerkleTree changed = merkleTree.refresh();
+        assertEquals(1, changed.getHashedFileCount());
+        assertFalse(Arrays.equals(merkleTree.getRootHash(), changed.getRootHash()));
+        assertArrayEquals(merkleTree.getNode("dir2").orElseThrow().getHash(),
+                changed.getNode("dir2").orElseThrow().getHash());
+        assertEquals(List.of(new MerkleTree.Change("dir1/b.txt", MerkleTree.ChangeType.MODIFIED)),
+                merkleTree.diff(changed));
+    }
+
+    @Test
+    void diff() throws IOException {
+        Path root = createTree("diff");
+        MerkleTree before = MerkleTree.build(root, StandardChecksumAlgorithm.CRC32C);
+
+        Files.delete(root.resolve("dir1/b.txt"));
+        writeFile(root.resolve("dir2/d.txt"), "d", "2020-01-01T00:00:00Z");
+        Files.createDirectory(root.resolve("dir3"));
+        writeFile(root.resolve("a.txt"), "changed", "2020-01-01T00:00:00Z");
+        MerkleTree after = before.refresh();
+
+        assertEquals(List.of(
+                        new MerkleTree.Change("a.txt", MerkleTree.ChangeType.MODIFIED),
+                        new MerkleTree.Change("dir1/b.txt", MerkleTree.ChangeType.REMOVED),
+                        new MerkleTree.Change("dir2/d.txt", MerkleTree.ChangeType.ADDED),
+                        new MerkleTree.Change("dir3", MerkleTree.ChangeType.ADDED)),
+                before.diff(after));
+        assertEquals(List.of(
+                        new MerkleTree.Change("a.txt", MerkleTree.ChangeType.MODIFIED),
+                        new MerkleTree.Change("dir1/b.txt", MerkleTree.ChangeType.ADDED),
+                        new MerkleTree.Change("dir2/d.txt", MerkleTree.ChangeType.REMOVED),
+                        new MerkleTree.Change("dir3", MerkleTree.ChangeType.REMOVED)),
+                after.diff(before));
+    }
+
+    @Test
+    void saveAndLoad() throws IOException {
+        Path root = createTree("saveAndLoad");
+        Path treeFile = tempDir.asPath().resolve("saveAndLoad.tree");
+        MerkleTree merkleTree = MerkleTree.build(root, StandardChecksumAlgorithm.SHA_256);
+        merkleTree.save(treeFile);
+
+        MerkleTree loaded = MerkleTree.load(treeFile, StandardChecksumAlgorithm.SHA_256);
+        assertEquals(merkleTree.getRoot(), loaded.getRoot());
+        assertArrayEquals(merkleTree.getRootHash(), loaded.getRootHash());
+        assertTrue(merkleTree.diff(loaded).isEmpty());
+
+        MerkleTree refreshed = loaded.refresh();
+        assertEquals(0, refreshed.getHashedFileCount());
+
+        assertThrows(IOException.class, () -> MerkleTree.load(treeFile, StandardChecksumAlgorithm.CRC32));
+    }
+
+    @Test
+    void notExistingRoot() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MerkleTree.build(tempDir.asPath().resolve("notExisting"), StandardChecksumAlgorithm.CRC32));
+    }
+
+    private static Path createTree(String name) throws IOException {
+        Path root = tempDir.asPath().resolve(name);
+        Files.createDirectories(root.resolve("dir1"));
+        Files.createDirectories(root.resolve("dir2/empty"));
+        writeFile(root.resolve("a.txt"), "a", "2020-01-01T00:00:00Z");
+        writeFile(root.resolve("dir1/b.txt"), "b", "2020-01-01T00:00:00Z");
+        writeFile(root.resolve("dir1/c.txt"), "c", "2020-01-01T00:00:00Z");
+        writeFile(root.resolve("dir2/c.txt"), "c", "2020-01-01T00:00:00Z");
+        return root;
+    }
+
+    private static void writeFile(Path file, String content, String lastModified) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse(lastModified)));
+    }
+
+}
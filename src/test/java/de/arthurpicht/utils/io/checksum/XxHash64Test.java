@@ -0,0 +1,51 @@
+package de.arthurpicht.utils.io.checksum;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XxHash64Test {
+
+    @Test
+    void knownValues() {
+        assertEquals(0xEF46DB3751D8E999L, xxHash64(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, xxHash64("a"));
+        assertEquals(0x44BC2CF5AD770999L, xxHash64("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, xxHash64("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void incrementalUpdates() {
+        byte[] content = ChecksumsTest.randomBytes(1000, 7);
+        XxHash64 oneShot = new XxHash64();
+        oneShot.update(content);
+
+        for (int step : new int[]{1, 3, 31, 32, 33, 100}) {
+            XxHash64 incremental = new XxHash64();
+            for (int off = 0; off < content.length; off += step) {
+                incremental.update(ByteBuffer.allocateDirect(Math.min(step, content.length - off))
+                        .put(content, off, Math.min(step, content.length - off))
+                        .flip());
+            }
+            assertEquals(oneShot.getValue(), incremental.getValue(), "step " + step);
+        }
+    }
+
+    @Test
+    void reset() {
+        XxHash64 xxHash64 = new XxHash64();
+        xxHash64.update("abc".getBytes(StandardCharsets.US_ASCII));
+        xxHash64.reset();
+        assertEquals(0xEF46DB3751D8E999L, xxHash64.getValue());
+    }
+
+    private static long xxHash64(String string) {
+        XxHash64 xxHash64 = new XxHash64();
+        xxHash64.update(string.getBytes(StandardCharsets.US_ASCII));
+        return xxHash64.getValue();
+    }
+
+}
@@ -0,0 +1,162 @@
+package de.arthurpicht.utils.io.compress;
+
+import de.arthurpicht.utils.io.nio2.FileUtils;
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarTest {
+
+    private static final String LONG_NAME = "x".repeat(120) + ".txt";
+
+    private static TempDir tempDir;
+    private static Path tarDir;
+
+    @BeforeAll
+    public static void prepare() throws IOException {
+        tempDir = new TempDir.Creator()
+                .withParentDir("testTemp")
+                .create();
+        tarDir = tempDir.asPath().resolve("testMaterial/tar");
+        Path aDir = Files.createDirectories(tarDir.resolve("a"));
+        Path bDir = Files.createDirectories(tarDir.resolve("b"));
+        Files.createDirectories(tarDir.resolve("c"));
+        Files.writeString(tarDir.resolve("test1.txt"), "content of test1.txt");
+        Files.writeString(aDir.resolve("test_a.txt"), "content of test_a.txt");
+        Files.writeString(bDir.resolve("test_b.txt"), "content of test_b.txt".repeat(1000));
+        Files.writeString(bDir.resolve(LONG_NAME), "long name");
+        Files.setLastModifiedTime(tarDir.resolve("test1.txt"), FileTime.fromMillis(1_000_000_000_000L));
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        tempDir.remove();
+    }
+
+    @Test
+    public void tarWithRootDir() throws IOException {
+        Path destination = tempDir.asPath().resolve("tarWithRootDir.tar");
+
+        Tar.tar(tarDir, destination, true);
+
+        assertEquals(0, Files.size(destination) % TarHeader.RECORD_SIZE);
+        Set<String> entryNames = new HashSet<>(Tar.getTarEntryNames(destination));
+        assertEquals(Set.of("tar/", "tar/a/", "tar/a/test_a.txt", "tar/b/", "tar/b/test_b.txt", "tar/b/" + LONG_NAME,
+                "tar/c/", "tar/test1.txt"), entryNames);
+
+        Files.delete(destination);
+    }
+
+    @Test
+    public void tarWithoutRootDir() throws IOException {
+        Path destination = tempDir.asPath().resolve("tarWithoutRootDir.tar");
+
+        Tar.tar(tarDir, destination, false);
+
+        Set<String> entryNames = new HashSet<>(Tar.getTarEntryNames(destination));
+        assertEquals(Set.of("a/", "a/test_a.txt", "b/", "b/test_b.txt", "b/" + LONG_NAME, "c/", "test1.txt"),
+                entryNames);
+
+        Files.delete(destination);
+    }
+
+    @Test
+    public void tarSingleFile() throws IOException {
+        Path destination = tempDir.asPath().resolve("tarSingleFile.tar");
+
+        Tar.tar(tarDir.resolve("test1.txt"), destination, false);
+
+        assertEquals(List.of("test1.txt"), Tar.getTarEntryNames(destination));
+
+        Files.delete(destination);
+    }
+
+    @Test
+    public void tarGzRoundTrip() throws IOException {
+        Path destination = tempDir.asPath().resolve("tarGzRoundTrip.tar.gz");
+        Tar.tarGz(tarDir, destination, true);
+
+        Path untarDestination = tempDir.asPath().resolve("untarGz");
+        Tar.untar(destination, untarDestination);
+
+        assertEquals("content of test1.txt", Files.readString(untarDestination.resolve("tar/test1.txt")));
+        assertEquals("content of test_b.txt".repeat(1000), Files.readString(untarDestination.resolve("tar/b/test_b.txt")));
+        assertEquals("long name", Files.readString(untarDestination.resolve("tar/b/" + LONG_NAME)));
+        assertTrue(FileUtils.isExistingDirectory(untarDestination.resolve("tar/c")));
+        assertEquals(FileTime.fromMillis(1_000_000_000_000L),
+                Files.getLastModifiedTime(untarDestination.resolve("tar/test1.txt")));
+
+        Files.delete(destination);
+        FileUtils.rmDir(untarDestination);
+    }
+
+    @Test
+    public void tarGzPipelinedEqualsSequential() throws IOException {
+        Path pipelined = tempDir.asPath().resolve("pipelined.tar.gz");
+        Path sequential = tempDir.asPath().resolve("sequential.tar.gz");
+
+        Tar.tarGz(tarDir, pipelined, false, true);
+        Tar.tarGz(tarDir, sequential, false, false);
+
+        assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(pipelined));
+
+        Files.delete(pipelined);
+        Files.delete(sequential);
+    }
+
+    @Test
+    public void streamRoundTrip() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Tar.tarGz(tarDir, outputStream, false);
+
+        Path untarDestination = tempDir.asPath().resolve("untarStream");
+        Tar.untar(new ByteArrayInputStream(outputStream.toByteArray()), untarDestination);
+
+        assertEquals("content of test_a.txt", Files.readString(untarDestination.resolve("a/test_a.txt")));
+
+        FileUtils.rmDir(untarDestination);
+    }
+
+    @Test
+    public void zipSlip() throws IOException {
+        byte[] content = "evil".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(new TarHeader("../evil.txt", 0644, content.length, 0, TarHeader.TYPE_FILE).encode());
+        outputStream.write(content);
+        outputStream.write(new byte[TarHeader.padding(content.length) + 2 * TarHeader.BLOCK_SIZE]);
+
+        Path untarDestination = tempDir.asPath().resolve("untarZipSlip");
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+
+        assertThrows(IOException.class, () -> Tar.untar(inputStream, untarDestination));
+        assertFalse(Files.exists(tempDir.asPath().resolve("evil.txt")));
+    }
+
+    @Test
+    public void parsePaxRecords() throws IOException {
+        byte[] data = "12 path=abc\n14 uname=user\n".getBytes(StandardCharsets.UTF_8);
+        assertEquals(Map.of("path", "abc", "uname", "user"), TarHeader.parsePaxRecords(data));
+
+        for (String invalid : List.of("99 path=abc\n", "3 path=abc\n", "-5 path=abc\n", "12path=abc\n",
+                "12 path=abcd", "x path=abc\n", "99999999999999999999 p=a\n")) {
+            byte[] invalidData = invalid.getBytes(StandardCharsets.UTF_8);
+            assertThrows(IOException.class, () -> TarHeader.parsePaxRecords(invalidData), invalid);
+        }
+    }
+
+}
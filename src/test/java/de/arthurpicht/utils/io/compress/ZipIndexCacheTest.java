@@ -0,0 +1,117 @@
+package de.arthurpicht.utils.io.compress;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipIndexCacheTest {
+
+    private static TempDir tempDir;
+    private static Path zipDir;
+
+    @BeforeAll
+    public static void prepare() throws IOException {
+        tempDir = new TempDir.Creator()
+                .withParentDir("testTemp")
+                .create();
+        zipDir = tempDir.asPath().resolve("testMaterial/zip");
+        Path aDir = Files.createDirectories(zipDir.resolve("a"));
+        Files.writeString(zipDir.resolve("test1.txt"), "content of test1.txt");
+        Files.writeString(aDir.resolve("test_a.txt"), "content of test_a.txt");
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        tempDir.remove();
+    }
+
+    @Test
+    public void hitAndMiss() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("hitAndMiss.zip");
+        Zip.zip(zipDir, zipFile, false);
+
+        ZipIndexCache cache = new ZipIndexCache(2);
+        ZipIndex zipIndex = cache.get(zipFile);
+        assertEquals(4, zipIndex.size());
+        assertTrue(cache.contains(zipFile, "a/test_a.txt"));
+        assertFalse(cache.contains(zipFile, "b/test_b.txt"));
+        assertEquals(20, cache.getEntry(zipFile, "test1.txt").orElseThrow().getSize());
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+        assertSame(zipIndex, cache.get(zipFile));
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void entriesAreCopies() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("entriesAreCopies.zip");
+        Zip.zip(zipDir.resolve("test1.txt"), zipFile, false);
+
+        ZipIndexCache cache = new ZipIndexCache(2);
+        cache.get(zipFile).getEntries().getFirst().setSize(1);
+        cache.getEntry(zipFile, "test1.txt").orElseThrow().setSize(2);
+
+        assertEquals(20, cache.get(zipFile).getEntries().getFirst().getSize());
+        assertEquals(20, cache.getEntry(zipFile, "test1.txt").orElseThrow().getSize());
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void reloadOnModification() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("reloadOnModification.zip");
+        Zip.zip(zipDir.resolve("test1.txt"), zipFile, false);
+
+        ZipIndexCache cache = new ZipIndexCache(2);
+        assertEquals(1, cache.getEntryNames(zipFile).size());
+
+        Files.delete(zipFile);
+        Zip.zip(zipDir, zipFile, false);
+        Files.setLastModifiedTime(zipFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+
+        assertEquals(4, cache.getEntryNames(zipFile).size());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.size());
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void eviction() throws IOException {
+        Path zipFile1 = tempDir.asPath().resolve("eviction1.zip");
+        Path zipFile2 = tempDir.asPath().resolve("eviction2.zip");
+        Path zipFile3 = tempDir.asPath().resolve("eviction3.zip");
+        Zip.zip(zipDir, zipFile1, false);
+        Zip.zip(zipDir, zipFile2, false);
+        Zip.zip(zipDir, zipFile3, false);
+
+        ZipIndexCache cache = new ZipIndexCache(2);
+        cache.get(zipFile1);
+        cache.get(zipFile2);
+        cache.get(zipFile1);
+        cache.get(zipFile3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.get(zipFile1);
+        assertEquals(2, cache.getHitCount());
+        cache.get(zipFile2);
+        assertEquals(4, cache.getMissCount());
+
+        Files.delete(zipFile1);
+        Files.delete(zipFile2);
+        Files.delete(zipFile3);
+    }
+
+}
@@ -1,20 +1,26 @@
 package de.arthurpicht.utils.io.compress;
 
+import de.arthurpicht.utils.io.file.TextFileUtils;
 import de.arthurpicht.utils.io.nio2.FileUtils;
 import de.arthurpicht.utils.io.tempDir.TempDir;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 import java.util.Set;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ZipTest {
 
@@ -130,4 +136,180 @@ class ZipTest {
         FileUtils.rmDir(unzipDestination);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testZipToOutputStream() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        Zip.zip(zipDir, outputStream, true);
+
+        Path destination = tempDir.asPath().resolve("testZipToOutputStream.zip");
+        Files.write(destination, outputStream.toByteArray());
+
+        Set<String> entryNames = Zip.getZipEntryNames(destination);
+        assertEquals(7, entryNames.size());
+        assertTrue(entryNames.contains("zip/a/test_a.txt"));
+        assertTrue(entryNames.contains("zip/c/"));
+
+        Files.delete(destination);
+    }
+
+    @Test
+    public void testZipToChannel() throws IOException {
+        Path destination = tempDir.asPath().resolve("testZipToChannel.zip");
+        if (Files.exists(destination)) Files.delete(destination);
+
+        try (FileChannel channel = FileChannel.open(destination, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            Zip.zip(zipDir, channel, false);
+            assertTrue(channel.isOpen());
+        }
+
+        Set<String> entryNames = Zip.getZipEntryNames(destination);
+        assertEquals(7, entryNames.size());
+        assertTrue(entryNames.contains("b/test_b.txt"));
+        assertTrue(entryNames.contains("test1.txt"));
+
+        Files.delete(destination);
+    }
+
+    @Test
+    public void testZipReproducible() throws IOException {
+        Path destination1 = tempDir.asPath().resolve("testZipReproducible1.zip");
+        Path destination2 = tempDir.asPath().resolve("testZipReproducible2.zip");
+        if (Files.exists(destination1)) Files.delete(destination1);
+        if (Files.exists(destination2)) Files.delete(destination2);
+
+        // timestamps are changed on a copy, so that the shared test material is left untouched
+        Path sourceDir = tempDir.asPath().resolve("testZipReproducible/zip");
+        FileUtils.copyDirectory(zipDir, sourceDir);
+
+        Zip.zipReproducible(sourceDir, destination1, true);
+        Files.setLastModifiedTime(sourceDir.resolve("test1.txt"), FileTime.fromMillis(System.currentTimeMillis() + 60000));
+        Zip.zipReproducible(sourceDir, destination2, true);
+
+        assertArrayEquals(Files.readAllBytes(destination1), Files.readAllBytes(destination2));
+
+        List<? extends ZipEntry> zipEntryList = Zip.getZipEntryList(destination1);
+        List<String> entryNames = zipEntryList.stream().map(ZipEntry::getName).toList();
+        assertEquals(List.of("zip/", "zip/a/", "zip/a/test_a.txt", "zip/b/", "zip/b/test_b.txt", "zip/c/", "zip/test1.txt"), entryNames);
+        assertEquals(Zip.REPRODUCIBLE_TIMESTAMP, zipEntryList.getFirst().getTimeLocal());
+
+        Files.delete(destination1);
+        Files.delete(destination2);
+        FileUtils.forceDelete(sourceDir.getParent());
+    }
+
+    @Test
+    public void testZipReproducibleToOutputStream() throws IOException {
+        Path destination = tempDir.asPath().resolve("testZipReproducibleToOutputStream.zip");
+        if (Files.exists(destination)) Files.delete(destination);
+        Zip.zipReproducible(zipDir, destination, false);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Zip.zipReproducible(zipDir, outputStream, false);
+
+        assertArrayEquals(Files.readAllBytes(destination), outputStream.toByteArray());
+
+        Files.delete(destination);
+    }
+
+    @Test
+    public void testVerify() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("testVerify.zip");
+        if (Files.exists(zipFile)) Files.delete(zipFile);
+        Zip.zip(zipDir, zipFile, true);
+
+        assertDoesNotThrow(() -> Zip.verify(zipFile));
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void testVerifyCorrupt() throws IOException {
+        Path zipFile = createCorruptZip("testVerifyCorrupt.zip");
+
+        ZipException zipException = assertThrows(ZipException.class, () -> Zip.verify(zipFile));
+        assertTrue(zipException.getMessage().contains("stored.txt"));
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void testUnzipVerifyCorrupt() throws IOException {
+        Path zipFile = createCorruptZip("testUnzipVerifyCorrupt.zip");
+        Path unzipDestination = tempDir.asPath().resolve("unzipVerifyCorrupt");
+
+        assertThrows(ZipException.class, () -> Zip.unzip(zipFile, unzipDestination, true));
+        assertFalse(Files.exists(unzipDestination.resolve("stored.txt")));
+
+        Files.delete(zipFile);
+        FileUtils.rmDir(unzipDestination);
+    }
+
+    @Test
+    public void testUnzipVerify() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("testUnzipVerify.zip");
+        if (Files.exists(zipFile)) Files.delete(zipFile);
+        Zip.zip(zipDir, zipFile, true);
+        Path unzipDestination = tempDir.asPath().resolve("unzipVerify");
+
+        Zip.unzip(zipFile, unzipDestination, true);
+
+        assertEquals("content of test_b.txt", Files.readString(unzipDestination.resolve("zip/b/test_b.txt")));
+
+        Files.delete(zipFile);
+        FileUtils.rmDir(unzipDestination);
+    }
+
+    @Test
+    public void testOpenFileSystem() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("testOpenFileSystem.zip");
+        if (Files.exists(zipFile)) Files.delete(zipFile);
+        Zip.zip(zipDir, zipFile, true);
+
+        try (FileSystem fileSystem = Zip.openFileSystem(zipFile)) {
+            Path root = fileSystem.getPath("/zip");
+
+            List<Path> containingFiles = FileUtils.getContainingFiles(root);
+            assertEquals(3, containingFiles.size());
+            assertEquals(List.of("content of test_a.txt"), TextFileUtils.readLinesAsStrings(root.resolve("a/test_a.txt")));
+            assertFalse(TextFileUtils.endsWithNewLineOrIsEmpty(root.resolve("test1.txt")));
+
+            Path copyDestination = tempDir.asPath().resolve("copyFromZipFileSystem");
+            FileUtils.copyDirectory(root, copyDestination);
+            assertEquals("content of test_b.txt", Files.readString(copyDestination.resolve("b/test_b.txt")));
+            assertTrue(FileUtils.isExistingDirectory(copyDestination.resolve("c")));
+            FileUtils.rmDir(copyDestination);
+        }
+
+        Files.delete(zipFile);
+    }
+
+    /**
+     * Creates a zip file with a stored entry whose content has been altered after creation, so that the CRC
+     * recorded in the zip file does not match.
+     */
+    private static Path createCorruptZip(String fileName) throws IOException {
+        Path zipFile = tempDir.asPath().resolve(fileName);
+        if (Files.exists(zipFile)) Files.delete(zipFile);
+
+        byte[] content = "0123456789".repeat(10).getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        ZipEntry zipEntry = new ZipEntry("stored.txt");
+        zipEntry.setMethod(ZipEntry.STORED);
+        zipEntry.setSize(content.length);
+        zipEntry.setCrc(crc32.getValue());
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zipOutputStream.putNextEntry(zipEntry);
+            zipOutputStream.write(content);
+            zipOutputStream.closeEntry();
+        }
+
+        byte[] bytes = Files.readAllBytes(zipFile);
+        String string = new String(bytes, StandardCharsets.ISO_8859_1);
+        bytes[string.indexOf("0123456789") + 5] = 'X';
+        Files.write(zipFile, bytes);
+        return zipFile;
+    }
+
+}
@@ -0,0 +1,175 @@
+package de.arthurpicht.utils.io.compress;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipUpdateTest {
+
+    private static TempDir tempDir;
+    private static Path zipDir;
+
+    @BeforeAll
+    public static void prepare() throws IOException {
+        tempDir = new TempDir.Creator()
+                .withParentDir("testTemp")
+                .create();
+        zipDir = tempDir.asPath().resolve("testMaterial/zip");
+        Path aDir = Files.createDirectories(zipDir.resolve("a"));
+        Path bDir = Files.createDirectories(zipDir.resolve("b"));
+        Files.writeString(zipDir.resolve("test1.txt"), "content of test1.txt");
+        Files.writeString(aDir.resolve("test_a.txt"), "content of test_a.txt");
+        Files.writeString(bDir.resolve("test_b.txt"), "content of test_b.txt");
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        tempDir.remove();
+    }
+
+    @Test
+    public void replaceAddAndRemove() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("replaceAddAndRemove.zip");
+        Zip.zip(zipDir, zipFile, false);
+        long compressedSizeBefore = getEntry(zipFile, "a/test_a.txt").getCompressedSize();
+
+        Path replacement = tempDir.asPath().resolve("replacement.txt");
+        Files.writeString(replacement, "replaced content");
+        Path addition = tempDir.asPath().resolve("addition.txt");
+        Files.writeString(addition, "added content");
+
+        new ZipUpdate(zipFile)
+                .withFile("test1.txt", replacement)
+                .withFile("new/addition.txt", addition)
+                .withRemovedEntry("b/test_b.txt")
+                .apply();
+
+        Set<String> entryNames = Zip.getZipEntryNames(zipFile);
+        assertEquals(Set.of("/", "a/", "a/test_a.txt", "b/", "test1.txt", "new/addition.txt"), entryNames);
+        assertEquals("replaced content", readEntry(zipFile, "test1.txt"));
+        assertEquals("added content", readEntry(zipFile, "new/addition.txt"));
+        assertEquals("content of test_a.txt", readEntry(zipFile, "a/test_a.txt"));
+        assertEquals(compressedSizeBefore, getEntry(zipFile, "a/test_a.txt").getCompressedSize());
+
+        int streamedEntries = 0;
+        try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(zipFile))) {
+            while (zipInputStream.getNextEntry() != null) {
+                zipInputStream.readAllBytes();
+                streamedEntries++;
+            }
+        }
+        assertEquals(6, streamedEntries);
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void updateFromSource() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("updateFromSource.zip");
+        Zip.zip(zipDir.resolve("test1.txt"), zipFile, false);
+
+        Zip.update(zipFile, zipDir.resolve("a"), true);
+
+        assertEquals(Set.of("test1.txt", "a/", "a/test_a.txt"), Zip.getZipEntryNames(zipFile));
+        assertEquals("content of test1.txt", readEntry(zipFile, "test1.txt"));
+        assertEquals("content of test_a.txt", readEntry(zipFile, "a/test_a.txt"));
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void keepPermissions() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("keepPermissions.zip");
+        Zip.zip(zipDir.resolve("test1.txt"), zipFile, false);
+        Files.setPosixFilePermissions(zipFile, PosixFilePermissions.fromString("rw-r--r--"));
+
+        Zip.update(zipFile, zipDir.resolve("a"), true);
+
+        assertEquals(PosixFilePermissions.fromString("rw-r--r--"), Files.getPosixFilePermissions(zipFile));
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void keepComment() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("keepComment.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zipOutputStream.setComment("zip comment");
+            zipOutputStream.putNextEntry(new ZipEntry("stored.txt"));
+            zipOutputStream.write("stored".getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.closeEntry();
+        }
+
+        new ZipUpdate(zipFile)
+                .withFile("test1.txt", zipDir.resolve("test1.txt"))
+                .apply();
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            assertEquals("zip comment", zip.getComment());
+            assertEquals(2, zip.size());
+        }
+        assertEquals("stored", readEntry(zipFile, "stored.txt"));
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void zip64EntryCount() throws IOException {
+        Path zipFile = tempDir.asPath().resolve("zip64EntryCount.zip");
+        int entryCount = 70000;
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            for (int i = 0; i < entryCount; i++) {
+                zipOutputStream.putNextEntry(new ZipEntry("entry" + i));
+                zipOutputStream.closeEntry();
+            }
+        }
+
+        new ZipUpdate(zipFile)
+                .withFile("test1.txt", zipDir.resolve("test1.txt"))
+                .withRemovedEntry("entry0")
+                .apply();
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            assertEquals(entryCount, zip.size());
+            assertNull(zip.getEntry("entry0"));
+            assertNotNull(zip.getEntry("entry" + (entryCount - 1)));
+        }
+        assertEquals("content of test1.txt", readEntry(zipFile, "test1.txt"));
+
+        Files.delete(zipFile);
+    }
+
+    @Test
+    public void notExisting() {
+        Path zipFile = tempDir.asPath().resolve("notExisting.zip");
+        assertThrows(IllegalArgumentException.class, () -> new ZipUpdate(zipFile).apply());
+    }
+
+    private static ZipEntry getEntry(Path zipFile, String name) throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            return zip.getEntry(name);
+        }
+    }
+
+    private static String readEntry(Path zipFile, String name) throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile.toFile());
+             InputStream inputStream = zip.getInputStream(zip.getEntry(name))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
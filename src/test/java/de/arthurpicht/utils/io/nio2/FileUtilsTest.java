@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,6 +42,26 @@ class FileUtilsTest {
         FileUtilsTest.rootOfTree = rootOfTree;
     }
 
+    @Test
+    void createTempFileForReplacement() throws IOException {
+        Path dir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create()
+                .asPath();
+        Path target = Files.createFile(dir.resolve("target.txt"));
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rw-r-----"));
+
+        Path tempFile = FileUtils.createTempFileForReplacement(target, ".target-");
+        assertEquals(dir.toAbsolutePath(), tempFile.getParent());
+        assertTrue(tempFile.getFileName().toString().startsWith(".target-"));
+        assertEquals(0, Files.size(tempFile));
+        assertEquals(PosixFilePermissions.fromString("rw-r-----"), Files.getPosixFilePermissions(tempFile));
+
+        Path newFile = Files.createFile(dir.resolve("new.txt"));
+        Path tempFileOfMissingTarget = FileUtils.createTempFileForReplacement(dir.resolve("missing.txt"), ".missing-");
+        assertEquals(Files.getPosixFilePermissions(newFile), Files.getPosixFilePermissions(tempFileOfMissingTarget));
+    }
+
     @Test
     void rmDirR() throws IOException {
         Path tempDir = new TempDir.Creator()
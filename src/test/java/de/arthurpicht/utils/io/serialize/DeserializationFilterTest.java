@@ -0,0 +1,143 @@
+package de.arthurpicht.utils.io.serialize;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeserializationFilterTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    static class Node implements Serializable {
+        private final Node next;
+
+        Node(Node next) {
+            this.next = next;
+        }
+    }
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    private static <T> T roundTrip(Object object, String fileName, DeserializationFilter filter) throws SerializerException {
+        Path file = tempDir.asPath().resolve(fileName);
+        GenericObjectSerializer.serialize(object, file, SerializerOptions.defaults());
+        SerializerOptions options = new SerializerOptions.Builder().withInputFilter(filter).build();
+        return GenericObjectSerializer.deserialize(file, options);
+    }
+
+    private static void assertRejected(SerializerException e) {
+        assertInstanceOf(InvalidClassException.class, e.getCause());
+    }
+
+    @Test
+    void allowedClasses() throws SerializerException {
+        DeserializationFilter filter = new DeserializationFilter.Builder()
+                .withAllowedClasses(ArrayList.class, String.class)
+                .build();
+        List<String> list = new ArrayList<>(List.of("a", "b"));
+        assertEquals(list, roundTrip(list, "allowedClasses.ser", filter));
+
+        SerializerException e = assertThrows(SerializerException.class,
+                () -> roundTrip(new AtomicLong(1), "rejectedClass.ser", filter));
+        assertRejected(e);
+    }
+
+    @Test
+    void allowedPackages() throws SerializerException {
+        DeserializationFilter filter = new DeserializationFilter.Builder()
+                .withAllowedPackages("java.lang", "java.util")
+                .build();
+        List<Integer> list = new ArrayList<>(List.of(1, 2, 3));
+        assertEquals(list, roundTrip(list, "allowedPackages.ser", filter));
+
+        SerializerException e = assertThrows(SerializerException.class,
+                () -> roundTrip(new Node(null), "rejectedPackage.ser", filter));
+        assertRejected(e);
+    }
+
+    @Test
+    void primitiveArraysAlwaysAllowed() throws SerializerException {
+        DeserializationFilter filter = new DeserializationFilter.Builder()
+                .withAllowedClasses(String.class)
+                .build();
+        assertArrayEquals(new byte[]{1, 2, 3}, roundTrip(new byte[]{1, 2, 3}, "primitiveArray.ser", filter));
+    }
+
+    @Test
+    void maxDepth() throws SerializerException {
+        Node chain = null;
+        for (int i = 0; i < 50; i++) chain = new Node(chain);
+        Node deepChain = chain;
+
+        DeserializationFilter lenientFilter = new DeserializationFilter.Builder().withMaxDepth(100).build();
+        assertNotNull(roundTrip(deepChain, "maxDepthAllowed.ser", lenientFilter));
+
+        DeserializationFilter filter = new DeserializationFilter.Builder().withMaxDepth(10).build();
+        assertRejected(assertThrows(SerializerException.class, () -> roundTrip(deepChain, "maxDepth.ser", filter)));
+    }
+
+    @Test
+    void maxArrayLength() {
+        DeserializationFilter filter = new DeserializationFilter.Builder().withMaxArrayLength(1000).build();
+        assertRejected(assertThrows(SerializerException.class,
+                () -> roundTrip(new long[100_000], "maxArrayLength.ser", filter)));
+    }
+
+    @Test
+    void maxReferences() {
+        List<Node> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) list.add(new Node(null));
+        DeserializationFilter filter = new DeserializationFilter.Builder().withMaxReferences(100).build();
+        assertRejected(assertThrows(SerializerException.class, () -> roundTrip(list, "maxReferences.ser", filter)));
+    }
+
+    @Test
+    void maxBytes() {
+        List<Node> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) list.add(new Node(null));
+        DeserializationFilter filter = new DeserializationFilter.Builder().withMaxBytes(1024).build();
+        assertRejected(assertThrows(SerializerException.class, () -> roundTrip(list, "maxBytes.ser", filter)));
+    }
+
+    @Test
+    void objectStreamReader() throws IOException {
+        Path file = tempDir.asPath().resolve("objectStreamReader.ser");
+        try (ObjectStreamWriter<Object> writer = new ObjectStreamWriter<>(file, SerializerOptions.defaults())) {
+            writer.write("a");
+            writer.write(new AtomicLong(1));
+        }
+
+        DeserializationFilter filter = new DeserializationFilter.Builder()
+                .withAllowedClasses(String.class)
+                .build();
+        SerializerOptions options = new SerializerOptions.Builder().withInputFilter(filter).build();
+        try (ObjectStreamReader<Object> reader = new ObjectStreamReader<>(file, options)) {
+            var iterator = reader.iterator();
+            assertEquals("a", iterator.next());
+            assertThrows(RuntimeException.class, iterator::next);
+        }
+    }
+
+}
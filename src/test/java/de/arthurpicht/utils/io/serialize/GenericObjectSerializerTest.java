@@ -0,0 +1,157 @@
+package de.arthurpicht.utils.io.serialize;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenericObjectSerializerTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    @Test
+    void serializeAndDeserialize() throws SerializerException {
+        Path file = tempDir.asPath().resolve("serializeAndDeserialize.ser");
+        List<String> list = createList(1000);
+
+        GenericObjectSerializer.serialize(list, file.toFile());
+        List<String> result = GenericObjectSerializer.deserialize(file.toFile());
+
+        assertEquals(list, result);
+    }
+
+    @Test
+    void gzipCompression() throws SerializerException, IOException {
+        Path file = tempDir.asPath().resolve("gzipCompression.ser.gz");
+        Path uncompressedFile = tempDir.asPath().resolve("gzipCompression.ser");
+        List<String> list = createList(10_000);
+        SerializerOptions options = new SerializerOptions.Builder()
+                .withCompression(SerializerOptions.Compression.GZIP)
+                .withCompressionLevel(1)
+                .build();
+
+        GenericObjectSerializer.serialize(list, file, options);
+        GenericObjectSerializer.serialize(list, uncompressedFile.toFile());
+
+        assertTrue(Files.size(file) < Files.size(uncompressedFile));
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(file))) {
+            assertArrayEquals(Files.readAllBytes(uncompressedFile), inputStream.readAllBytes());
+        }
+        assertEquals(list, GenericObjectSerializer.deserialize(file, SerializerOptions.defaults()));
+        assertEquals(list, GenericObjectSerializer.deserialize(file.toFile()));
+    }
+
+    @Test
+    void deflateCompression() throws SerializerException, IOException {
+        Path file = tempDir.asPath().resolve("deflateCompression.ser");
+        List<String> list = createList(10_000);
+        SerializerOptions options = new SerializerOptions.Builder()
+                .withCompression(SerializerOptions.Compression.DEFLATE)
+                .withBufferSize(1024)
+                .build();
+
+        GenericObjectSerializer.serialize(list, file, options);
+
+        assertEquals(0x78, Files.readAllBytes(file)[0]);
+        assertEquals(list, GenericObjectSerializer.deserialize(file, options));
+    }
+
+    @Test
+    void atomicWrite() throws SerializerException, IOException {
+        Path dir = tempDir.asPath().resolve("atomicWrite");
+        Files.createDirectory(dir);
+        Path file = dir.resolve("atomicWrite.ser");
+        SerializerOptions options = new SerializerOptions.Builder().withAtomicWrite().build();
+
+        GenericObjectSerializer.serialize(createList(10), file, options);
+        GenericObjectSerializer.serialize(createList(20), file, options);
+
+        assertEquals(createList(20), GenericObjectSerializer.deserialize(file, options));
+        try (var stream = Files.list(dir)) {
+            assertEquals(List.of(file), stream.toList());
+        }
+    }
+
+    @Test
+    void atomicWriteKeepsPermissions() throws SerializerException, IOException {
+        Path file = tempDir.asPath().resolve("atomicWritePermissions.ser");
+        SerializerOptions options = new SerializerOptions.Builder().withAtomicWrite().build();
+        GenericObjectSerializer.serialize(createList(10), file, options);
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+
+        GenericObjectSerializer.serialize(createList(20), file, options);
+
+        assertEquals(PosixFilePermissions.fromString("rw-r--r--"), Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    void atomicWriteFailureKeepsExistingFile() throws SerializerException, IOException {
+        Path dir = tempDir.asPath().resolve("atomicWriteFailure");
+        Files.createDirectory(dir);
+        Path file = dir.resolve("atomicWriteFailure.ser");
+        SerializerOptions options = new SerializerOptions.Builder().withAtomicWrite().build();
+        GenericObjectSerializer.serialize(createList(10), file, options);
+
+        List<Object> notSerializable = new ArrayList<>(List.of("a", new Object()));
+        assertThrows(SerializerException.class, () -> GenericObjectSerializer.serialize(notSerializable, file, options));
+
+        assertEquals(createList(10), GenericObjectSerializer.deserialize(file, options));
+        try (var stream = Files.list(dir)) {
+            assertEquals(List.of(file), stream.toList());
+        }
+    }
+
+    record Entry(String key, long value, boolean flag) {
+    }
+
+    @Test
+    void recordCodec() throws SerializerException {
+        Path file = tempDir.asPath().resolve("recordCodec.bin");
+        Entry entry = new Entry("key", 42, true);
+        SerializerOptions options = new SerializerOptions.Builder()
+                .withCompression(SerializerOptions.Compression.GZIP)
+                .withAtomicWrite()
+                .build();
+
+        GenericObjectSerializer.serialize(entry, file, options, RecordCodec.of(Entry.class));
+
+        assertEquals(entry, GenericObjectSerializer.deserialize(file, options, RecordCodec.of(Entry.class)));
+    }
+
+    @Test
+    void illegalOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new SerializerOptions.Builder().withBufferSize(0));
+        assertThrows(IllegalArgumentException.class, () -> new SerializerOptions.Builder().withCompressionLevel(10));
+    }
+
+    private static List<String> createList(int size) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) list.add("element " + i);
+        return list;
+    }
+
+}
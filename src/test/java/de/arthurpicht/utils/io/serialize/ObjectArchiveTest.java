@@ -0,0 +1,171 @@
+package de.arthurpicht.utils.io.serialize;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectArchiveTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    record Point(int x, int y, String label) implements Serializable {
+    }
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    @Test
+    void putAndGet() throws IOException {
+        Path file = tempDir.asPath().resolve("putAndGet.archive");
+        try (ObjectArchive archive = ObjectArchive.open(file)) {
+            archive.put("list", List.of("a", "b"));
+            archive.put("point", new Point(1, 2, "p"), RecordCodec.of(Point.class));
+
+            assertEquals(Optional.of(List.of("a", "b")), archive.get("list"));
+            assertEquals(Optional.of(new Point(1, 2, "p")), archive.get("point", RecordCodec.of(Point.class)));
+            assertEquals(Optional.empty(), archive.get("missing"));
+            assertEquals(2, archive.size());
+        }
+
+        try (ObjectArchive archive = ObjectArchive.openReadOnly(file)) {
+            assertEquals(Optional.of(List.of("a", "b")), archive.get("list"));
+            assertEquals(Optional.of(new Point(1, 2, "p")), archive.get("point", RecordCodec.of(Point.class)));
+            assertEquals(Set.of("list", "point"), archive.getKeys());
+            assertThrows(IllegalStateException.class, () -> archive.put("list", List.of()));
+        }
+    }
+
+    @Test
+    void manyObjects() throws IOException {
+        Path file = tempDir.asPath().resolve("manyObjects.archive");
+        try (ObjectArchive archive = ObjectArchive.open(file)) {
+            for (int i = 0; i < 1000; i++) archive.put("key-" + i, i);
+        }
+        try (ObjectArchive archive = ObjectArchive.open(file)) {
+            for (int i = 1000; i < 2000; i++) archive.put("key-" + i, i);
+            archive.flush();
+            for (int i = 0; i < 2000; i++) assertEquals(Optional.of(i), archive.get("key-" + i));
+            assertFalse(archive.contains("key-2000"));
+            assertEquals(2000, archive.getKeys().size());
+        }
+    }
+
+    @Test
+    void replaceRemoveAndCompact() throws IOException {
+        Path file = tempDir.asPath().resolve("compact.archive");
+        try (ObjectArchive archive = ObjectArchive.open(file)) {
+            for (int i = 0; i < 100; i++) archive.put("key-" + i, "value " + i);
+            archive.flush();
+            archive.put("key-0", "replaced");
+            assertTrue(archive.remove("key-1"));
+            assertFalse(archive.remove("key-1"));
+            archive.flush();
+
+            assertEquals(99, archive.size());
+            assertEquals(Optional.of("replaced"), archive.get("key-0"));
+            assertFalse(archive.contains("key-1"));
+            assertTrue(archive.getGarbageSize() > 0);
+
+            long sizeBefore = Files.size(file);
+            archive.compact();
+            assertTrue(Files.size(file) < sizeBefore);
+            assertEquals(0, archive.getGarbageSize());
+            assertEquals(99, archive.size());
+            assertEquals(Optional.of("replaced"), archive.get("key-0"));
+
+            archive.put("key-1", "again");
+        }
+
+        try (ObjectArchive archive = ObjectArchive.openReadOnly(file)) {
+            Set<String> expectedKeys = new HashSet<>();
+            for (int i = 0; i < 100; i++) expectedKeys.add("key-" + i);
+            assertEquals(expectedKeys, archive.getKeys());
+            assertEquals(Optional.of("again"), archive.get("key-1"));
+            assertEquals(Optional.of("value 99"), archive.get("key-99"));
+        }
+    }
+
+    @Test
+    void compactEmptiedArchive() throws IOException {
+        Path file = tempDir.asPath().resolve("compactEmptied.archive");
+        try (ObjectArchive archive = ObjectArchive.open(file)) {
+            archive.put("a", "value");
+            archive.flush();
+            assertTrue(archive.remove("a"));
+            archive.compact();
+
+            assertEquals(0, archive.size());
+            assertEquals(0, archive.getGarbageSize());
+            assertEquals(Optional.empty(), archive.get("a"));
+            archive.put("b", "after compaction");
+        }
+
+        try (ObjectArchive archive = ObjectArchive.openReadOnly(file)) {
+            assertEquals(Set.of("b"), archive.getKeys());
+            assertEquals(Optional.of("after compaction"), archive.get("b"));
+        }
+    }
+
+    @Test
+    void recoverAfterCrashBeforeFlush() throws IOException {
+        Path file = tempDir.asPath().resolve("crash.archive");
+        Path crashedFile = tempDir.asPath().resolve("crashed.archive");
+        try (ObjectArchive archive = ObjectArchive.open(file)) {
+            archive.put("a", "committed");
+            archive.flush();
+            archive.put("b", "not committed");
+            archive.put("a", "replaced, not committed");
+            // file content at time of crash, including a partially written index
+            Files.copy(file, crashedFile);
+            Files.write(crashedFile, new byte[]{1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+        }
+
+        try (ObjectArchive archive = ObjectArchive.openReadOnly(crashedFile)) {
+            assertEquals(Set.of("a"), archive.getKeys());
+            assertEquals(Optional.of("committed"), archive.get("a"));
+        }
+
+        try (ObjectArchive archive = ObjectArchive.open(crashedFile)) {
+            assertEquals(1, archive.size());
+            archive.put("c", "after recovery");
+        }
+        try (ObjectArchive archive = ObjectArchive.openReadOnly(crashedFile)) {
+            assertEquals(Set.of("a", "c"), archive.getKeys());
+            assertEquals(Optional.of("committed"), archive.get("a"));
+            assertEquals(Optional.of("after recovery"), archive.get("c"));
+        }
+    }
+
+    @Test
+    void invalidFile() throws IOException {
+        Path file = tempDir.asPath().resolve("invalid.archive");
+        Files.writeString(file, "no archive at all, but long enough to contain a footer");
+        assertThrows(IOException.class, () -> ObjectArchive.open(file));
+        assertThrows(IllegalArgumentException.class,
+                () -> ObjectArchive.openReadOnly(tempDir.asPath().resolve("missing.archive")));
+    }
+
+}
@@ -0,0 +1,149 @@
+package de.arthurpicht.utils.io.serialize;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectStreamWriterTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    record Entry(String key, long value) implements Serializable {
+    }
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    @Test
+    void javaSerialization() throws IOException {
+        Path file = tempDir.asPath().resolve("javaSerialization.ser");
+        SerializerOptions options = new SerializerOptions.Builder().withResetInterval(10).build();
+        List<Entry> entries = createEntries(1000);
+
+        try (ObjectStreamWriter<Entry> writer = new ObjectStreamWriter<>(file, options)) {
+            writer.writeAll(entries);
+            assertEquals(1000, writer.getCount());
+        }
+
+        try (ObjectStreamReader<Entry> reader = new ObjectStreamReader<>(file, options)) {
+            assertEquals(entries, reader.stream().toList());
+        }
+    }
+
+    @Test
+    void recordCodecCompressed() throws IOException {
+        Path file = tempDir.asPath().resolve("recordCodecCompressed.bin");
+        SerializerOptions options = new SerializerOptions.Builder()
+                .withCompression(SerializerOptions.Compression.GZIP)
+                .withAtomicWrite()
+                .build();
+        List<Entry> entries = createEntries(1000);
+
+        try (ObjectStreamWriter<Entry> writer = new ObjectStreamWriter<>(file, options, RecordCodec.of(Entry.class))) {
+            for (Entry entry : entries) writer.write(entry);
+        }
+
+        try (Stream<Entry> stream = new ObjectStreamReader<>(file, options, RecordCodec.of(Entry.class)).stream()) {
+            assertEquals(entries, stream.toList());
+        }
+    }
+
+    @Test
+    void nullAndSharedObjects() throws IOException {
+        Path file = tempDir.asPath().resolve("nullAndSharedObjects.ser");
+        int[] shared = {1, 2, 3};
+        try (ObjectStreamWriter<Object> writer = new ObjectStreamWriter<>(file, SerializerOptions.defaults())) {
+            writer.write(null);
+            writer.write(shared);
+            writer.write(shared);
+        }
+
+        try (ObjectStreamReader<Object> reader = new ObjectStreamReader<>(file, SerializerOptions.defaults())) {
+            List<Object> objects = new ArrayList<>();
+            reader.forEach(objects::add);
+            assertEquals(3, objects.size());
+            assertNull(objects.get(0));
+            assertTrue(Arrays.equals(shared, (int[]) objects.get(1)));
+            assertSame(objects.get(1), objects.get(2));
+            assertThrows(IllegalStateException.class, reader::iterator);
+        }
+    }
+
+    @Test
+    void empty() throws IOException {
+        Path file = tempDir.asPath().resolve("empty.ser");
+        new ObjectStreamWriter<Entry>(file, SerializerOptions.defaults()).close();
+
+        try (ObjectStreamReader<Entry> reader = new ObjectStreamReader<>(file, SerializerOptions.defaults())) {
+            assertFalse(reader.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void truncated() throws IOException {
+        Path file = tempDir.asPath().resolve("truncated.bin");
+        try (ObjectStreamWriter<Entry> writer = new ObjectStreamWriter<>(
+                file, SerializerOptions.defaults(), RecordCodec.of(Entry.class))) {
+            writer.writeAll(createEntries(10));
+        }
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+
+        try (ObjectStreamReader<Entry> reader = new ObjectStreamReader<>(
+                file, SerializerOptions.defaults(), RecordCodec.of(Entry.class))) {
+            Iterator<Entry> iterator = reader.iterator();
+            for (int i = 0; i < 10; i++) iterator.next();
+            assertThrows(UncheckedIOException.class, iterator::hasNext);
+        }
+    }
+
+    @Test
+    void failedAtomicWriteKeepsExistingFile() throws IOException {
+        Path file = tempDir.asPath().resolve("failedAtomicWrite.ser");
+        SerializerOptions options = new SerializerOptions.Builder().withAtomicWrite().build();
+        try (ObjectStreamWriter<Object> writer = new ObjectStreamWriter<>(file, options)) {
+            writer.write("existing");
+        }
+
+        ObjectStreamWriter<Object> writer = new ObjectStreamWriter<>(file, options);
+        writer.write("new");
+        assertThrows(NotSerializableException.class, () -> writer.write(new Object()));
+        writer.close();
+
+        try (ObjectStreamReader<Object> reader = new ObjectStreamReader<>(file, options)) {
+            assertEquals(List.of("existing"), reader.stream().toList());
+        }
+    }
+
+    private static List<Entry> createEntries(int size) {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) entries.add(new Entry("key" + i, i * 31L));
+        return entries;
+    }
+
+}
@@ -0,0 +1,165 @@
+package de.arthurpicht.utils.io.serialize;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordCodecTest {
+
+    enum Color {RED, GREEN}
+
+    record Primitives(boolean b, byte by, short s, char c, int i, long l, float f, double d) {
+    }
+
+    record Point(int x, int y, String label) implements Serializable {
+    }
+
+    record Shape(String name, Color color, Integer count, byte[] data, Point origin, List<Point> points) {
+    }
+
+    record Node(int value, Node next) {
+    }
+
+    record ShapeHolder(Shape shape) {
+    }
+
+    record Data(byte[] bytes) {
+    }
+
+    record IntValue(int value) {
+    }
+
+    record ShortValue(short value) {
+    }
+
+    record LongValue(long value) {
+    }
+
+    record Tree(String label, Branch branch) {
+    }
+
+    record Branch(Tree left, Tree right) {
+    }
+
+    record Validated(int positive) {
+        Validated {
+            if (positive <= 0) throw new IllegalArgumentException("positive must be greater than 0");
+        }
+    }
+
+    @Test
+    void primitives() throws IOException {
+        RecordCodec<Primitives> codec = RecordCodec.of(Primitives.class);
+        Primitives primitives = new Primitives(true, (byte) -1, Short.MIN_VALUE, 'ä', Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, -2.25);
+        assertEquals(primitives, codec.decode(codec.encode(primitives)));
+    }
+
+    @Test
+    void compactEncoding() throws IOException {
+        RecordCodec<Point> codec = RecordCodec.of(Point.class);
+        Point point = new Point(1, -1, "a");
+
+        ByteBuffer encoded = codec.encode(point);
+
+        // x, y as zigzag varints, label as length + 1 and UTF-8 bytes
+        assertEquals(4, encoded.remaining());
+        assertEquals(point, codec.decode(encoded));
+        assertEquals(0, encoded.position());
+
+        ByteArrayOutputStream javaSerialized = new ByteArrayOutputStream();
+        new JavaSerializationCodec<Point>().encode(point, javaSerialized);
+        assertTrue(javaSerialized.size() > 10 * encoded.remaining());
+    }
+
+    @Test
+    void nullValues() throws IOException {
+        RecordCodec<Point> codec = RecordCodec.of(Point.class);
+        Point point = new Point(0, 0, null);
+        assertEquals(point, codec.decode(codec.encode(point)));
+    }
+
+    @Test
+    void unsupportedComponentType() {
+        assertThrows(IllegalArgumentException.class, () -> RecordCodec.of(Shape.class));
+    }
+
+    @Test
+    void unsupportedComponentTypeOfNestedRecord() {
+        assertThrows(IllegalArgumentException.class, () -> RecordCodec.of(ShapeHolder.class));
+    }
+
+    @Test
+    void recursiveRecord() throws IOException {
+        RecordCodec<Node> codec = RecordCodec.of(Node.class);
+        Node node = new Node(1, new Node(2, new Node(3, null)));
+        assertEquals(node, codec.decode(codec.encode(node)));
+    }
+
+    @Test
+    void mutuallyRecursiveRecords() throws IOException {
+        RecordCodec<Tree> codec = RecordCodec.of(Tree.class);
+        Tree tree = new Tree("root", new Branch(new Tree("left", null), new Tree("right", new Branch(null, null))));
+        assertEquals(tree, codec.decode(codec.encode(tree)));
+    }
+
+    @Test
+    void multipleRecordsInOneStream() throws IOException {
+        RecordCodec<Point> codec = RecordCodec.of(Point.class);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) points.add(new Point(i, -i * 1000, "point " + i));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        for (Point point : points) codec.write(dataOutputStream, point);
+
+        DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        for (Point point : points) assertEquals(point, codec.read(dataInputStream));
+        assertEquals(-1, dataInputStream.read());
+    }
+
+    @Test
+    void invalidData() throws IOException {
+        RecordCodec<Validated> codec = RecordCodec.of(Validated.class);
+        ByteBuffer encoded = RecordCodec.of(Point.class).encode(new Point(-5, 0, null));
+        assertThrows(IOException.class, () -> codec.decode(encoded));
+        assertThrows(EOFException.class, () -> codec.decode(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void largeByteArray() throws IOException {
+        RecordCodec<Data> codec = RecordCodec.of(Data.class);
+        byte[] bytes = new byte[200_000];
+        new Random(42).nextBytes(bytes);
+        assertArrayEquals(bytes, codec.decode(codec.encode(new Data(bytes))).bytes());
+    }
+
+    @Test
+    void corruptLengthFailsAtEndOfInput() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        Varints.writeUnsignedInt(dataOutputStream, Integer.MAX_VALUE);
+        dataOutputStream.write(new byte[]{1, 2, 3});
+
+        ByteBuffer encoded = ByteBuffer.wrap(outputStream.toByteArray());
+        assertThrows(EOFException.class, () -> RecordCodec.of(Data.class).decode(encoded));
+    }
+
+    @Test
+    void outOfRangeValues() throws IOException {
+        RecordCodec<LongValue> longCodec = RecordCodec.of(LongValue.class);
+        ByteBuffer tooLargeForInt = longCodec.encode(new LongValue(Integer.MAX_VALUE + 1L));
+        ByteBuffer tooSmallForShort = longCodec.encode(new LongValue(Short.MIN_VALUE - 1L));
+
+        assertThrows(IOException.class, () -> RecordCodec.of(IntValue.class).decode(tooLargeForInt));
+        assertThrows(IOException.class, () -> RecordCodec.of(ShortValue.class).decode(tooSmallForShort));
+        assertEquals(new IntValue(Integer.MIN_VALUE),
+                RecordCodec.of(IntValue.class).decode(longCodec.encode(new LongValue(Integer.MIN_VALUE))));
+    }
+
+}
@@ -0,0 +1,160 @@
+package de.arthurpicht.utils.io.serialize;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotWriterTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    private static class DeepNode implements Serializable {
+        private DeepNode next;
+    }
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    @Test
+    void snapshot() throws Exception {
+        Path file = tempDir.asPath().resolve("snapshot.ser");
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 1)) {
+            CompletableFuture<Path> future = snapshotWriter.snapshot(List.of("a", "b"), file);
+            assertEquals(file, future.get());
+            assertEquals(1, snapshotWriter.getWrittenCount());
+        }
+        assertEquals(List.of("a", "b"), GenericObjectSerializer.deserialize(file.toFile()));
+    }
+
+    @Test
+    void rotatedGenerations() throws Exception {
+        Path file = tempDir.asPath().resolve("rotatedGenerations.ser");
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 3)) {
+            for (int i = 1; i <= 5; i++) snapshotWriter.snapshot("state " + i, file).get();
+        }
+
+        assertEquals("state 5", GenericObjectSerializer.deserialize(file.toFile()));
+        assertEquals("state 4", GenericObjectSerializer.deserialize(SnapshotWriter.getGenerationFile(file, 1).toFile()));
+        assertEquals("state 3", GenericObjectSerializer.deserialize(SnapshotWriter.getGenerationFile(file, 2).toFile()));
+        assertFalse(Files.exists(SnapshotWriter.getGenerationFile(file, 3)));
+    }
+
+    @Test
+    void readLatestSkipsUnreadableGenerations() throws Exception {
+        Path file = tempDir.asPath().resolve("readLatest.ser");
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 2)) {
+            snapshotWriter.snapshot("state 1", file);
+            snapshotWriter.snapshot("state 2", file).get();
+        }
+        Files.writeString(file, "corrupt");
+
+        assertEquals("state 1", SnapshotWriter.readLatest(file, 2, SerializerOptions.defaults(), new JavaSerializationCodec<String>()));
+        Files.delete(SnapshotWriter.getGenerationFile(file, 1));
+        assertThrows(SerializerException.class,
+                () -> SnapshotWriter.readLatest(file, 2, SerializerOptions.defaults(), new JavaSerializationCodec<String>()));
+    }
+
+    @Test
+    void coalescing() throws Exception {
+        Path file = tempDir.asPath().resolve("coalescing.ser");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ObjectCodec<String> blockingCodec = new JavaSerializationCodec<>() {
+            @Override
+            public void encode(String object, OutputStream outputStream) throws IOException {
+                if (object.equals("first")) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                super.encode(object, outputStream);
+            }
+        };
+
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 1)) {
+            CompletableFuture<Path> first = snapshotWriter.snapshot("first", file, blockingCodec);
+            started.await();
+            List<CompletableFuture<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) futures.add(snapshotWriter.snapshot("state " + i, file, blockingCodec));
+            release.countDown();
+
+            first.get();
+            for (CompletableFuture<Path> future : futures) assertEquals(file, future.get());
+            assertEquals(2, snapshotWriter.getWrittenCount());
+            assertEquals(9, snapshotWriter.getCoalescedCount());
+        }
+        assertEquals("state 9", GenericObjectSerializer.deserialize(file.toFile()));
+    }
+
+    @Test
+    void failure() throws Exception {
+        Path file = tempDir.asPath().resolve("failure.ser");
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 2)) {
+            snapshotWriter.snapshot("valid", file).get();
+            CompletableFuture<Path> future = snapshotWriter.snapshot(new Object(), file);
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertInstanceOf(SerializerException.class, e.getCause());
+            assertEquals(1, snapshotWriter.getFailedCount());
+        }
+        assertEquals("valid", GenericObjectSerializer.deserialize(file.toFile()));
+        assertFalse(Files.exists(SnapshotWriter.getGenerationFile(file, 1)));
+    }
+
+    @Test
+    void errorIsReportedByFuture() throws Exception {
+        Path file = tempDir.asPath().resolve("errorIsReportedByFuture.ser");
+        DeepNode deepNode = new DeepNode();
+        for (int i = 0; i < 1_000_000; i++) {
+            DeepNode node = new DeepNode();
+            node.next = deepNode;
+            deepNode = node;
+        }
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 1)) {
+            CompletableFuture<Path> future = snapshotWriter.snapshot(deepNode, file);
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertInstanceOf(SerializerException.class, e.getCause());
+            assertInstanceOf(StackOverflowError.class, e.getCause().getCause());
+            snapshotWriter.awaitIdle();
+            assertEquals(1, snapshotWriter.getFailedCount());
+
+            snapshotWriter.snapshot("valid", file).get();
+        }
+        assertEquals("valid", GenericObjectSerializer.deserialize(file.toFile()));
+    }
+
+    @Test
+    void closedWriterRejectsRequests() throws IOException {
+        SnapshotWriter snapshotWriter = new SnapshotWriter(SerializerOptions.defaults(), 1, Runnable::run);
+        snapshotWriter.close();
+        assertThrows(IllegalStateException.class,
+                () -> snapshotWriter.snapshot("state", tempDir.asPath().resolve("closed.ser")));
+    }
+
+}
@@ -0,0 +1,197 @@
+package de.arthurpicht.utils.io.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTeeOutputStreamTest {
+
+    static class BlockedOutputStream extends ByteArrayOutputStream {
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            try {
+                this.release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            super.write(b, off, len);
+        }
+
+        void release() {
+            this.release.countDown();
+        }
+    }
+
+    /**
+     * Writes bytes in chunks of 100 and waits until each chunk arrives at specified fast sink, so that only the
+     * queues of slow sinks overflow.
+     */
+    private static void writeInstantlyDrained(
+            AsyncTeeOutputStream outputStream, byte[] bytes, ByteArrayOutputStream fastOut) throws IOException {
+        IOException exception = null;
+        for (int off = 0; off < bytes.length; off += 100) {
+            try {
+                outputStream.write(bytes, off, 100);
+            } catch (IOException e) {
+                if (exception == null) exception = e;
+            }
+            while (fastOut.size() < off + 100) Thread.onSpinWait();
+        }
+        if (exception != null) throw exception;
+    }
+
+    @Test
+    public void writeToAll() throws IOException {
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(100_000);
+        List<ByteArrayOutputStream> outs = List.of(
+                new ByteArrayOutputStream(), new ByteArrayOutputStream(), new ByteArrayOutputStream());
+        try (AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(outs)
+                .withBufferSize(1000)
+                .withQueueCapacity(4)
+                .build()) {
+            outputStream.write(bytes, 0, 10);
+            outputStream.write(bytes[10]);
+            outputStream.flush();
+            for (ByteArrayOutputStream out : outs) assertEquals(11, out.size());
+            outputStream.write(bytes, 11, bytes.length - 11);
+        }
+        for (ByteArrayOutputStream out : outs) assertArrayEquals(bytes, out.toByteArray());
+    }
+
+    @Test
+    public void dropOnSlowSink() throws IOException {
+        BlockedOutputStream slowOut = new BlockedOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(List.of(slowOut, out))
+                .withBufferSize(100)
+                .withQueueCapacity(2)
+                .withOverflowPolicy(AsyncTeeOutputStream.OverflowPolicy.DROP)
+                .build();
+
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(10_000);
+        writeInstantlyDrained(outputStream, bytes, out);
+        slowOut.release();
+        outputStream.close();
+
+        assertArrayEquals(bytes, out.toByteArray());
+        assertEquals(0, outputStream.getDroppedBytes(1));
+        assertTrue(outputStream.getDroppedBytes(0) > 0);
+        assertEquals(bytes.length, slowOut.size() + outputStream.getDroppedBytes(0));
+        assertNull(outputStream.getFailure(0));
+    }
+
+    @Test
+    public void flushSkipsFullQueueOnDrop() throws IOException {
+        BlockedOutputStream slowOut = new BlockedOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(List.of(slowOut, out))
+                .withBufferSize(100)
+                .withQueueCapacity(2)
+                .withOverflowPolicy(AsyncTeeOutputStream.OverflowPolicy.DROP)
+                .build();
+
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(1000);
+        writeInstantlyDrained(outputStream, bytes, out);
+        outputStream.flush();
+        assertNull(outputStream.getFailure(0));
+
+        slowOut.release();
+        outputStream.close();
+        assertArrayEquals(bytes, out.toByteArray());
+    }
+
+    @Test
+    public void failOnSlowSink() throws IOException {
+        BlockedOutputStream slowOut = new BlockedOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(List.of(slowOut, out))
+                .withBufferSize(100)
+                .withQueueCapacity(2)
+                .withOverflowPolicy(AsyncTeeOutputStream.OverflowPolicy.FAIL)
+                .build();
+
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(10_000);
+        assertThrows(IOException.class, () -> writeInstantlyDrained(outputStream, bytes, out));
+        assertNotNull(outputStream.getFailure(0));
+        slowOut.release();
+        IOException e = assertThrows(IOException.class, outputStream::close);
+        assertEquals(1, e.getSuppressed().length);
+        assertArrayEquals(bytes, out.toByteArray());
+    }
+
+    @Test
+    public void errorOfSinkIsFailure() {
+        OutputStream errorOut = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new StackOverflowError();
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(List.of(errorOut, out))
+                .withBufferSize(10)
+                .withQueueCapacity(1)
+                .build();
+
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(1000);
+        assertDoesNotThrow(() -> outputStream.write(bytes));
+        assertThrows(IOException.class, outputStream::close);
+        assertInstanceOf(StackOverflowError.class, outputStream.getFailure(0).getCause());
+        assertArrayEquals(bytes, out.toByteArray());
+    }
+
+    @Test
+    public void failingSinkIsIsolated() {
+        TeeOutputStreamTest.FailingOutputStream failingOut = new TeeOutputStreamTest.FailingOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(List.<OutputStream>of(failingOut, out))
+                .withBufferSize(10)
+                .build();
+
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(1000);
+        assertDoesNotThrow(() -> outputStream.write(bytes));
+        assertThrows(IOException.class, outputStream::close);
+        assertNotNull(outputStream.getFailure(0));
+        assertNull(outputStream.getFailure(1));
+        assertTrue(failingOut.isClosed());
+        assertArrayEquals(bytes, out.toByteArray());
+        assertThrows(IOException.class, () -> outputStream.write(1));
+    }
+
+    @Test
+    public void closeWhenInterrupted() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+        AsyncTeeOutputStream outputStream = new AsyncTeeOutputStream.Builder(List.<OutputStream>of(out))
+                .withBufferSize(10)
+                .withQueueCapacity(1)
+                .build();
+        outputStream.write(new byte[]{1, 2, 3});
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, outputStream::close);
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+        assertArrayEquals(new byte[]{1, 2, 3}, out.toByteArray());
+        assertThrows(IOException.class, () -> outputStream.write(1));
+    }
+
+}
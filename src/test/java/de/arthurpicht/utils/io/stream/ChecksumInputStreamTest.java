@@ -0,0 +1,83 @@
+package de.arthurpicht.utils.io.stream;
+
+import de.arthurpicht.utils.io.checksum.ChecksumAlgorithm;
+import de.arthurpicht.utils.io.checksum.StandardChecksumAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumInputStreamTest {
+
+    @Test
+    void transferTo() throws IOException {
+        byte[] content = randomBytes(100_000);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        ChecksumInputStream inputStream = new ChecksumInputStream(new ByteArrayInputStream(content),
+                StandardChecksumAlgorithm.CRC32, StandardChecksumAlgorithm.SHA_256);
+        try (inputStream) {
+            inputStream.transferTo(target);
+        }
+
+        assertArrayEquals(content, target.toByteArray());
+        assertEquals(content.length, inputStream.getByteCount());
+        Map<ChecksumAlgorithm, byte[]> values = inputStream.getValues();
+        assertIterableEquals(List.of(StandardChecksumAlgorithm.CRC32, StandardChecksumAlgorithm.SHA_256), values.keySet());
+        assertArrayEquals(checksum(StandardChecksumAlgorithm.CRC32, content), values.get(StandardChecksumAlgorithm.CRC32));
+        assertArrayEquals(checksum(StandardChecksumAlgorithm.SHA_256, content),
+                inputStream.getValue(StandardChecksumAlgorithm.SHA_256));
+    }
+
+    @Test
+    void singleBytesAndSkip() throws IOException {
+        byte[] content = randomBytes(20_000);
+        try (ChecksumInputStream inputStream = new ChecksumInputStream(
+                new ByteArrayInputStream(content), StandardChecksumAlgorithm.XXHASH64)) {
+            assertEquals(content[0] & 0xFF, inputStream.read());
+            assertEquals(content[1] & 0xFF, inputStream.read());
+            assertEquals(10_000, inputStream.skip(10_000));
+            assertArrayEquals(checksum(StandardChecksumAlgorithm.XXHASH64, Arrays.copyOf(content, 10_002)),
+                    inputStream.getValue(StandardChecksumAlgorithm.XXHASH64));
+            assertEquals(9_998, inputStream.skip(20_000));
+            assertEquals(-1, inputStream.read());
+            assertArrayEquals(checksum(StandardChecksumAlgorithm.XXHASH64, content),
+                    inputStream.getValue(StandardChecksumAlgorithm.XXHASH64));
+            assertFalse(inputStream.markSupported());
+        }
+    }
+
+    @Test
+    void unknownAlgorithm() throws IOException {
+        try (ChecksumInputStream inputStream = new ChecksumInputStream(
+                new ByteArrayInputStream(new byte[0]), StandardChecksumAlgorithm.CRC32)) {
+            assertThrows(IllegalArgumentException.class, () -> inputStream.getValue(StandardChecksumAlgorithm.ADLER32));
+        }
+    }
+
+    @Test
+    void noAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () -> new ChecksumInputStream(new ByteArrayInputStream(new byte[0])));
+    }
+
+    static byte[] checksum(ChecksumAlgorithm algorithm, byte[] content) {
+        ChecksumAlgorithm.Hasher hasher = algorithm.newHasher();
+        hasher.update(ByteBuffer.wrap(content));
+        return hasher.getValue();
+    }
+
+    static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+}
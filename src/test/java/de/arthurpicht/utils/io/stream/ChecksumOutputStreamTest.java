@@ -0,0 +1,47 @@
+package de.arthurpicht.utils.io.stream;
+
+import de.arthurpicht.utils.io.checksum.StandardChecksumAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static de.arthurpicht.utils.io.stream.ChecksumInputStreamTest.checksum;
+import static de.arthurpicht.utils.io.stream.ChecksumInputStreamTest.randomBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumOutputStreamTest {
+
+    @Test
+    void write() throws IOException {
+        byte[] content = randomBytes(100_000);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        ChecksumOutputStream outputStream = new ChecksumOutputStream(target,
+                StandardChecksumAlgorithm.CRC32C, StandardChecksumAlgorithm.SHA_256);
+        try (outputStream) {
+            outputStream.write(content[0]);
+            outputStream.write(content, 1, 50_000);
+            assertArrayEquals(checksum(StandardChecksumAlgorithm.SHA_256, target.toByteArray()),
+                    outputStream.getValue(StandardChecksumAlgorithm.SHA_256));
+            outputStream.write(content, 50_001, content.length - 50_001);
+        }
+
+        assertArrayEquals(content, target.toByteArray());
+        assertEquals(content.length, outputStream.getByteCount());
+        assertArrayEquals(checksum(StandardChecksumAlgorithm.CRC32C, content),
+                outputStream.getValue(StandardChecksumAlgorithm.CRC32C));
+        assertArrayEquals(checksum(StandardChecksumAlgorithm.SHA_256, content),
+                outputStream.getValues().get(StandardChecksumAlgorithm.SHA_256));
+    }
+
+    @Test
+    void illegalInput() throws IOException {
+        try (ChecksumOutputStream outputStream = new ChecksumOutputStream(
+                new ByteArrayOutputStream(), StandardChecksumAlgorithm.CRC32)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> outputStream.write(new byte[5], 0, 7));
+            assertEquals(0, outputStream.getByteCount());
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package de.arthurpicht.utils.io.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("resource")
+class ConcurrentLimitedByteArrayOutputStreamTest {
+
+    private static final int RECORD_SIZE = 8;
+
+    @Test
+    public void singleBytes() {
+        ConcurrentLimitedByteArrayOutputStream stream = new ConcurrentLimitedByteArrayOutputStream(3);
+        stream.write(1);
+        stream.write(2);
+        assertEquals(2, stream.size());
+        assertArrayEquals(new byte[]{1, 2}, stream.toByteArray());
+
+        stream.write(3);
+        stream.write(4);
+        assertEquals(3, stream.size());
+        assertArrayEquals(new byte[]{2, 3, 4}, stream.toByteArray());
+    }
+
+    @Test
+    public void writeMultipleBytesExceedingInitially() {
+        ConcurrentLimitedByteArrayOutputStream stream = new ConcurrentLimitedByteArrayOutputStream(5);
+        stream.write(new byte[]{1, 2, 3, 4, 5, 6, 7});
+        assertEquals(5, stream.size());
+        assertArrayEquals(new byte[]{3, 4, 5, 6, 7}, stream.toByteArray());
+    }
+
+    @Test
+    public void reset() {
+        ConcurrentLimitedByteArrayOutputStream stream = new ConcurrentLimitedByteArrayOutputStream(5);
+        stream.write(new byte[]{1, 2, 3, 4, 5, 6, 7});
+        stream.reset();
+        assertEquals(0, stream.size());
+        assertArrayEquals(new byte[]{}, stream.toByteArray());
+
+        stream.write(new byte[]{8, 9});
+        assertEquals(2, stream.size());
+        assertArrayEquals(new byte[]{8, 9}, stream.toByteArray());
+        assertEquals("\u0008\u0009", stream.toString());
+    }
+
+    @Test
+    public void illegalInput() {
+        ConcurrentLimitedByteArrayOutputStream stream = new ConcurrentLimitedByteArrayOutputStream(5);
+        assertThrows(IndexOutOfBoundsException.class, () -> stream.write(new byte[]{1, 2, 3, 4, 5}, 0, 7));
+        assertEquals(0, stream.size());
+    }
+
+    @Test
+    public void sequentialWritesEqualLimitedByteArrayOutputStream() {
+        Random random = new Random(42);
+        ConcurrentLimitedByteArrayOutputStream concurrentStream = new ConcurrentLimitedByteArrayOutputStream(100);
+        LimitedByteArrayOutputStream stream = new LimitedByteArrayOutputStream(100);
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[random.nextInt(150)];
+            random.nextBytes(bytes);
+            concurrentStream.write(bytes);
+            stream.write(bytes);
+            assertArrayEquals(stream.toByteArray(), concurrentStream.toByteArray());
+        }
+    }
+
+    @Test
+    public void concurrentWritesAreNotInterleaved() throws InterruptedException {
+        ConcurrentLimitedByteArrayOutputStream stream = new ConcurrentLimitedByteArrayOutputStream(100 * RECORD_SIZE);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Throwable> failures = new ArrayList<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (writing.get()) assertRecords(stream.toByteArray());
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        reader.start();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int threadId = t;
+            Thread writer = new Thread(() -> {
+                byte[] record = new byte[RECORD_SIZE];
+                for (int i = 0; i < 10_000; i++) {
+                    Arrays.fill(record, (byte) (threadId * 32 + i % 32));
+                    stream.write(record);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) writer.join();
+        writing.set(false);
+        reader.join();
+
+        assertEquals(List.of(), failures);
+        byte[] bytes = stream.toByteArray();
+        assertEquals(100 * RECORD_SIZE, bytes.length);
+        assertRecords(bytes);
+    }
+
+    private static void assertRecords(byte[] bytes) {
+        // snapshots end at a record boundary, but may start within a record
+        for (int end = bytes.length; end - RECORD_SIZE >= 0; end -= RECORD_SIZE) {
+            for (int i = end - RECORD_SIZE; i < end; i++) {
+                assertEquals(bytes[end - 1], bytes[i], "interleaved record");
+            }
+        }
+    }
+
+}
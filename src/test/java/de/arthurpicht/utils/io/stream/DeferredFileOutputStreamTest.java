@@ -0,0 +1,115 @@
+package de.arthurpicht.utils.io.stream;
+
+import de.arthurpicht.utils.io.tempDir.TempDir;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredFileOutputStreamTest {
+
+    private static final String PROJECT_TEMP_DIR = "testTemp";
+    private static TempDir tempDir;
+
+    @BeforeAll
+    static void createTempDir() {
+        tempDir = new TempDir.Creator()
+                .withParentDir(PROJECT_TEMP_DIR)
+                .create();
+    }
+
+    @AfterAll
+    static void deleteTempDir() {
+        tempDir.remove();
+    }
+
+    private static byte[] read(DeferredFileOutputStream outputStream) throws IOException {
+        try (InputStream inputStream = outputStream.toInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Test
+    void inMemory() throws IOException {
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(4000);
+        DeferredFileOutputStream outputStream = new DeferredFileOutputStream(4000, tempDir);
+        try (outputStream) {
+            outputStream.write(bytes, 0, 10);
+            outputStream.write(bytes[10]);
+            outputStream.write(bytes, 11, bytes.length - 11);
+        }
+
+        assertTrue(outputStream.isInMemory());
+        assertNull(outputStream.getFile());
+        assertEquals(4000, outputStream.size());
+        assertArrayEquals(bytes, read(outputStream));
+    }
+
+    @Test
+    void spillToFile() throws IOException {
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(100_000);
+        DeferredFileOutputStream outputStream = new DeferredFileOutputStream(1000, tempDir);
+        try (outputStream) {
+            outputStream.write(bytes, 0, 999);
+            assertTrue(outputStream.isInMemory());
+            outputStream.write(bytes[999]);
+            assertTrue(outputStream.isInMemory());
+            outputStream.write(bytes[1000]);
+            assertFalse(outputStream.isInMemory());
+            outputStream.write(bytes, 1001, bytes.length - 1001);
+        }
+
+        Path file = outputStream.getFile();
+        assertTrue(file.startsWith(tempDir.asPath()));
+        assertEquals(100_000, outputStream.size());
+        assertArrayEquals(bytes, Files.readAllBytes(file));
+        assertArrayEquals(bytes, read(outputStream));
+
+        ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+        outputStream.writeTo(Channels.newChannel(channelOut));
+        assertArrayEquals(bytes, channelOut.toByteArray());
+
+        outputStream.delete();
+        assertFalse(Files.exists(file));
+        assertThrows(IllegalStateException.class, outputStream::toInputStream);
+    }
+
+    @Test
+    void openFileChannelSpillsInMemoryContent() throws IOException {
+        byte[] bytes = ChecksumInputStreamTest.randomBytes(100);
+        DeferredFileOutputStream outputStream = new DeferredFileOutputStream(1000, tempDir);
+        try (outputStream) {
+            outputStream.write(bytes);
+        }
+        assertTrue(outputStream.isInMemory());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileChannel fileChannel = outputStream.openFileChannel()) {
+            assertEquals(100, fileChannel.size());
+            fileChannel.transferTo(0, fileChannel.size(), Channels.newChannel(out));
+        }
+        assertArrayEquals(bytes, out.toByteArray());
+        assertFalse(outputStream.isInMemory());
+        assertArrayEquals(bytes, read(outputStream));
+        outputStream.delete();
+    }
+
+    @Test
+    void readBeforeCloseAndWriteAfterClose() throws IOException {
+        DeferredFileOutputStream outputStream = new DeferredFileOutputStream(10, tempDir);
+        outputStream.write(1);
+        assertThrows(IllegalStateException.class, outputStream::toInputStream);
+        outputStream.close();
+        assertThrows(IOException.class, () -> outputStream.write(2));
+    }
+
+}
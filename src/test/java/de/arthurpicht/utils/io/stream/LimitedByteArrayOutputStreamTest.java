@@ -2,7 +2,12 @@ package de.arthurpicht.utils.io.stream;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -99,6 +104,36 @@ class LimitedByteArrayOutputStreamTest {
         assertArrayEquals(new byte[]{3, 4, 5, 6, 7}, result);
     }
 
+    @Test
+    public void writeMultipleBytesWrappingAround() {
+        LimitedByteArrayOutputStream stream = new LimitedByteArrayOutputStream(5);
+
+        stream.write(new byte[]{1, 2, 3});
+        stream.write(new byte[]{4, 5, 6, 7});
+        assertEquals(5, stream.size());
+        assertArrayEquals(new byte[]{3, 4, 5, 6, 7}, stream.toByteArray());
+
+        stream.write(new byte[]{8, 9, 10, 11}, 1, 3);
+        assertArrayEquals(new byte[]{6, 7, 9, 10, 11}, stream.toByteArray());
+
+        stream.write(new byte[]{12, 13, 14, 15, 16, 17}, 0, 5);
+        assertArrayEquals(new byte[]{12, 13, 14, 15, 16}, stream.toByteArray());
+    }
+
+    @Test
+    public void bulkWriteEqualsSingleBytes() {
+        Random random = new Random(42);
+        LimitedByteArrayOutputStream bulkStream = new LimitedByteArrayOutputStream(100);
+        LimitedByteArrayOutputStream singleStream = new LimitedByteArrayOutputStream(100);
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[random.nextInt(150)];
+            random.nextBytes(bytes);
+            bulkStream.write(bytes);
+            for (byte b : bytes) singleStream.write(b);
+            assertArrayEquals(singleStream.toByteArray(), bulkStream.toByteArray());
+        }
+    }
+
     @Test
     public void reset() {
         LimitedByteArrayOutputStream stream = new LimitedByteArrayOutputStream(5);
@@ -134,5 +169,37 @@ class LimitedByteArrayOutputStreamTest {
         assertTrue(result.endsWith("\n"));
     }
 
+    @Test
+    public void writeTo() throws IOException {
+        LimitedByteArrayOutputStream stream = new LimitedByteArrayOutputStream(5);
+        stream.write(new byte[]{1, 2, 3});
+        stream.write(new byte[]{4, 5, 6, 7});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.writeTo(out);
+        assertArrayEquals(new byte[]{3, 4, 5, 6, 7}, out.toByteArray());
+
+        ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+        stream.writeTo(Channels.newChannel(channelOut));
+        assertArrayEquals(new byte[]{3, 4, 5, 6, 7}, channelOut.toByteArray());
+    }
+
+    @Test
+    public void lastLines() {
+        LimitedByteArrayOutputStream stream = new LimitedByteArrayOutputStream(16);
+        assertEquals("", stream.lastLines(2));
+
+        PrintStream printStream = new PrintStream(stream, true, StandardCharsets.UTF_8);
+        printStream.print("first\nsecond\nthird\nfourth\n");
+        assertEquals("third\nfourth\n", stream.lastLines(2, StandardCharsets.UTF_8));
+        assertEquals("fourth\n", stream.lastLines(1));
+        assertEquals("", stream.lastLines(0));
+        assertEquals("nd\nthird\nfourth\n", stream.lastLines(5));
+
+        printStream.print("fifth");
+        assertEquals("fifth", stream.lastLines(1));
+        assertEquals("fourth\nfifth", stream.lastLines(2));
+        assertThrows(IllegalArgumentException.class, () -> stream.lastLines(-1));
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package de.arthurpicht.utils.io.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeeOutputStreamTest {
+
+    static class FailingOutputStream extends OutputStream {
+        private boolean closed = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("write failed");
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        boolean isClosed() {
+            return this.closed;
+        }
+    }
+
+    @Test
+    public void writeToAll() throws IOException {
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        ByteArrayOutputStream out3 = new ByteArrayOutputStream();
+        try (TeeOutputStream teeOutputStream = new TeeOutputStream(List.of(out1, out2, out3))) {
+            teeOutputStream.write(1);
+            teeOutputStream.write(new byte[]{2, 3});
+            teeOutputStream.write(new byte[]{4, 5, 6}, 1, 2);
+        }
+        for (ByteArrayOutputStream out : List.of(out1, out2, out3)) {
+            assertArrayEquals(new byte[]{1, 2, 3, 5, 6}, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void failingStreamDoesNotAffectOthers() {
+        FailingOutputStream failing1 = new FailingOutputStream();
+        FailingOutputStream failing2 = new FailingOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TeeOutputStream teeOutputStream = new TeeOutputStream(List.of(failing1, out, failing2));
+
+        IOException e = assertThrows(IOException.class, () -> teeOutputStream.write(new byte[]{1, 2}));
+        assertEquals(1, e.getSuppressed().length);
+        assertArrayEquals(new byte[]{1, 2}, out.toByteArray());
+
+        assertDoesNotThrow(teeOutputStream::close);
+        assertTrue(failing1.isClosed());
+        assertTrue(failing2.isClosed());
+    }
+
+    @Test
+    public void runtimeExceptionDoesNotAffectOthers() {
+        FailingOutputStream failing = new FailingOutputStream();
+        OutputStream throwing = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("write failed");
+            }
+
+            @Override
+            public void close() {
+                throw new IllegalStateException("close failed");
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TeeOutputStream teeOutputStream = new TeeOutputStream(List.of(throwing, out, failing));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> teeOutputStream.write(1));
+        assertEquals(1, e.getSuppressed().length);
+        assertArrayEquals(new byte[]{1}, out.toByteArray());
+
+        assertThrows(IllegalStateException.class, teeOutputStream::close);
+        assertTrue(failing.isClosed());
+    }
+
+}